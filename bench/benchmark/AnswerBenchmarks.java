@@ -0,0 +1,93 @@
+package benchmark;
+
+import benchmark.fake.FakeDiscord;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import service.PlayQuestionService;
+import service.command.CommandDispatcher;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrong answers and chat while many games are running. Answering 1 is always wrong, so the games never end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnswerBenchmarks {
+    @Param({"10", "1000", "100000"})
+    public int games;
+
+    private final FakeDiscord discord = new FakeDiscord();
+    private final User player = discord.user(1, "player");
+    private MessageChannel[] channels;
+    private Message[] answers;
+    private Message[] chat;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkEnvironment.prepareBot();
+        channels = new MessageChannel[games];
+        answers = new Message[games];
+        chat = new Message[games];
+        for (int i = 0; i < games; i++) {
+            channels[i] = discord.channel(1_000_000L + i);
+            PlayQuestionService.getInstance().questionCommandCalled(channels[i]);
+            answers[i] = discord.message(channels[i], player, "!answer 1");
+            chat[i] = discord.message(channels[i], player, "this is just somebody chatting");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (MessageChannel channel : channels) {
+            PlayQuestionService.getInstance().abort(channel);
+        }
+    }
+
+    private int nextGame() {
+        int game = next;
+        next = game + 1 == games ? 0 : game + 1;
+        return game;
+    }
+
+    @Benchmark
+    public void answerCommandCalledWrong() {
+        PlayQuestionService.getInstance().answerCommandCalled("!answer 1", channels[nextGame()], player);
+    }
+
+    @Benchmark
+    public void dispatchAnswerWrong() {
+        CommandDispatcher.getInstance().dispatch(answers[nextGame()]);
+    }
+
+    @Benchmark
+    public void dispatchChatDuringGame() {
+        CommandDispatcher.getInstance().dispatch(chat[nextGame()]);
+    }
+
+    @Benchmark
+    public void textAnsweredChat(Blackhole blackhole) {
+        int game = nextGame();
+        blackhole.consume(PlayQuestionService.getInstance().textAnswered(chat[game].getContentRaw(), channels[game], player));
+    }
+}
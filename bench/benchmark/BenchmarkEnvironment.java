@@ -0,0 +1,64 @@
+package benchmark;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+import service.QuestionStorageService;
+import service.command.CommandDispatcher;
+import service.command.DefaultCommands;
+import service.storage.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Points the services at a scratch directory before the first of them is created, so the benchmarks never touch the files of a real bot.
+ * JMH runs every benchmark in a fresh JVM, so the settings are in place before any service reads them.
+ */
+final class BenchmarkEnvironment {
+    private static Path directory;
+
+    private BenchmarkEnvironment() {
+
+    }
+
+    /**
+     * Sets up the services once per JVM: commands registered and 100 questions stored whose first answer is wrong,
+     * so answering 1 never ends a game
+     */
+    static synchronized void prepareBot() throws IOException {
+        if (directory != null) {
+            return;
+        }
+        directory = Files.createTempDirectory("bot-bench");
+        System.setProperty("bot.storage.directory", directory.resolve("storage").toString());
+        System.setProperty("bot.storage.fsyncPolicy", FsyncPolicy.NEVER.name());
+        System.setProperty("bot.scores.file", directory.resolve("scores.json").toString());
+        System.setProperty("bot.state.directory", directory.resolve("state").toString());
+        System.setProperty("bot.banks.directory", directory.resolve("banks").toString());
+        QuestionStorageService storage = QuestionStorageService.getInstance();
+        storage.awaitLoaded();
+        for (int i = 0; i < 100; i++) {
+            storage.addQuestion(question(i));
+        }
+        DefaultCommands.registerAll(CommandDispatcher.getInstance());
+    }
+
+    static Question question(int number) {
+        return new Question("Generated question number " + number + ", which answer is right?", List.of(
+                new Answer("the wrong answer " + number, false),
+                new Answer("the right answer " + number, true),
+                new Answer("another wrong answer", false)));
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import benchmark.fake.FakeDiscord;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import service.command.CommandDispatcher;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages that are no command or an unknown one, what most of the traffic of a busy guild looks like
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmarks {
+    private Message chat;
+    private Message unknownCommand;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkEnvironment.prepareBot();
+        FakeDiscord discord = new FakeDiscord();
+        MessageChannel channel = discord.channel(1);
+        User player = discord.user(1, "player");
+        chat = discord.message(channel, player, "this is just somebody chatting");
+        unknownCommand = discord.message(channel, player, "!unknown");
+    }
+
+    @Benchmark
+    public void dispatchChat() {
+        CommandDispatcher.getInstance().dispatch(chat);
+    }
+
+    @Benchmark
+    public void dispatchUnknownCommand() {
+        CommandDispatcher.getInstance().dispatch(unknownCommand);
+    }
+
+    @Benchmark
+    public void findCommandName(Blackhole blackhole) {
+        blackhole.consume(CommandDispatcher.getInstance().findCommandName(unknownCommand.getContentRaw()));
+    }
+}
@@ -0,0 +1,328 @@
+package benchmark;
+
+import benchmark.fake.FakeDiscord;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dataObjects.Answer;
+import dataObjects.Question;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import service.QuestionStorageService;
+import service.command.CommandDispatcher;
+import service.execution.ChannelLaneExecutor;
+import service.metrics.LatencyHistogram;
+import service.metrics.Metrics;
+import service.recording.RecordedMessage;
+import service.storage.FsyncPolicy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays recorded messages into the bot end to end, through Bot.onMessageReceived, the rate limits, the channel lanes and the services,
+ * with fake JDA entities instead of Discord. Recordings are written by the bot itself when it runs with -Dbot.recording.file=messages.jsonl.
+ * <p>
+ * Every pass replays the messages at a higher speed up, so the point where the bot saturates shows as replies per second that stop growing
+ * and reply latencies that start to climb. With --fanout every recorded channel and user is replayed as that many distinct ones.
+ * Instead of a recording a synthetic load of many channels playing questions can be generated.
+ * <p>
+ * The reply latency is the time from a command to the next reply queued in its channel. Commands still waiting when a reply is queued
+ * count as answered by it, so a command whose reply was dropped does not inflate the latency of the next one by more than the time between them.
+ * <p>
+ * Like the benchmarks this runs the services in the working directory, so run it from an empty scratch directory:
+ * {@code java -cp out:libs/* benchmark.LoadReplay --recording messages.jsonl --speedups 1,2,4,8 --fanout 10}
+ * or {@code java -cp out:libs/* benchmark.LoadReplay --synthetic --channels 1000 --users 5000 --rate 500 --seconds 20}.
+ */
+public class LoadReplay {
+    private static final Gson gson = new Gson();
+    private static final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+    private final FakeDiscord discord = new FakeDiscord();
+    private final Map<Long, MessageChannel> channels = new HashMap<>();
+    private final Map<Long, User> users = new HashMap<>();
+    /**
+     * Per channel the time the oldest command without a reply was replayed at, 0 if there is none
+     */
+    private final Map<Long, AtomicLong> oldestUnansweredCommand = new ConcurrentHashMap<>();
+    private volatile LatencyHistogram replyLatencies = new LatencyHistogram();
+    private ListenerAdapter bot;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (Files.exists(Path.of("storage.json"))) {
+            System.out.println("Run the replay in an empty directory, there is a storage.json here that would be changed");
+            return;
+        }
+        System.setProperty("bot.storage.fsyncPolicy", System.getProperty("bot.storage.fsyncPolicy", FsyncPolicy.NEVER.name()));
+        List<RecordedMessage> messages;
+        if (options.containsKey("recording")) {
+            messages = readRecording(Path.of(options.get("recording")));
+        } else if (options.containsKey("synthetic")) {
+            messages = synthesize(Integer.parseInt(options.getOrDefault("channels", "100")),
+                    Integer.parseInt(options.getOrDefault("users", "1000")),
+                    Integer.parseInt(options.getOrDefault("rate", "200")),
+                    Integer.parseInt(options.getOrDefault("seconds", "10")));
+        } else {
+            System.out.println("Usage: LoadReplay (--recording <file> | --synthetic [--channels n] [--users n] [--rate messages/s] [--seconds n])"
+                    + " [--speedups 1,2,4] [--fanout n]");
+            return;
+        }
+        int fanout = Integer.parseInt(options.getOrDefault("fanout", "1"));
+        List<Double> speedups = new ArrayList<>();
+        for (String speedup : options.getOrDefault("speedups", "1").split(",")) {
+            speedups.add(Double.parseDouble(speedup));
+        }
+        new LoadReplay().run(messages, speedups, fanout);
+        System.exit(0);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            options.put(args[i].substring(2), hasValue ? args[++i] : "");
+        }
+        return options;
+    }
+
+    private void run(List<RecordedMessage> messages, List<Double> speedups, int fanout) throws Exception {
+        prepareQuestions();
+        // Bot lives in the unnamed package, it can only be reached by reflection from here
+        bot = (ListenerAdapter) Class.forName("Bot").getDeclaredConstructor().newInstance();
+        discord.setSendListener(this::replySent);
+        long recordedMillis = messages.isEmpty() ? 0 : messages.get(messages.size() - 1).getOffsetMillis();
+        System.out.printf(Locale.ROOT, "replaying %d messages recorded over %.1f s, fanout %d%n", messages.size(), recordedMillis / 1000.0, fanout);
+        System.out.printf(Locale.ROOT, "%8s %10s %12s %12s %12s %10s %10s %10s %10s %10s %10s %12s %12s%n",
+                "speedup", "messages", "offered/s", "handled/s", "replies/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms",
+                "limited", "dropped", "heap MB", "heap peak MB");
+        for (int pass = 0; pass < speedups.size(); pass++) {
+            replay(prepareEvents(messages, fanout, pass), speedups.get(pass));
+        }
+    }
+
+    /**
+     * Gives the bot some questions to play, the answer "the right answer" is right for all of them
+     */
+    private void prepareQuestions() {
+        QuestionStorageService storage = QuestionStorageService.getInstance();
+        storage.awaitLoaded();
+        if (!storage.getQuestions().isEmpty()) {
+            return;
+        }
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            questions.add(new Question("Generated question number " + i + ", which answer is right?", List.of(
+                    new Answer("the wrong answer", false),
+                    new Answer("the right answer", true),
+                    new Answer("another wrong answer", false))));
+        }
+        storage.addQuestions(questions);
+    }
+
+    /**
+     * Creates the fake events up front, so creating them is not measured. Every pass gets channels and users of its own,
+     * games left running by the previous pass do not get in the way.
+     */
+    private List<TimedEvent> prepareEvents(List<RecordedMessage> messages, int fanout, int pass) {
+        List<TimedEvent> events = new ArrayList<>(messages.size() * fanout);
+        for (RecordedMessage recorded : messages) {
+            for (int copy = 0; copy < fanout; copy++) {
+                long salt = (long) pass * fanout + copy + 1;
+                long channelId = syntheticId(recorded.getChannelId(), salt);
+                long guildId = recorded.getGuildId() == 0 ? 0 : syntheticId(recorded.getGuildId(), salt);
+                MessageChannel channel = channels.computeIfAbsent(channelId, id -> guildId == 0
+                        ? discord.channel(id)
+                        : discord.guildChannel(id, guildId));
+                User author = users.computeIfAbsent(syntheticId(recorded.getAuthorId(), salt), id -> discord.user(id, "user-" + id));
+                Message message = discord.message(channel, author, recorded.getContent());
+                boolean command = CommandDispatcher.getInstance().findCommandName(recorded.getContent()) != null;
+                events.add(new TimedEvent(recorded.getOffsetMillis(), channelId, command, discord.receivedEvent(message)));
+            }
+        }
+        return events;
+    }
+
+    private static long syntheticId(long id, long salt) {
+        long mixed = (id ^ salt * 0x9E3779B97F4A7C15L) * 0xff51afd7ed558ccdL;
+        // positive like Discord's ids
+        return (mixed ^ (mixed >>> 33)) & Long.MAX_VALUE;
+    }
+
+    private void replay(List<TimedEvent> events, double speedup) throws InterruptedException {
+        System.gc();
+        long heapBefore = memoryMXBean.getHeapMemoryUsage().getUsed();
+        AtomicLong heapPeak = new AtomicLong(heapBefore);
+        Thread heapSampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                heapPeak.accumulateAndGet(memoryMXBean.getHeapMemoryUsage().getUsed(), Math::max);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+        }, "heap-sampler");
+        heapSampler.setDaemon(true);
+        heapSampler.start();
+
+        replyLatencies = new LatencyHistogram();
+        long repliesBefore = discord.getSentMessages();
+        long limitedBefore = gauge("bot_admission_rejected_messages");
+        long droppedBefore = ChannelLaneExecutor.getInstance().getRejectedTasks();
+        long start = System.nanoTime();
+        for (TimedEvent event : events) {
+            long due = start + (long) (TimeUnit.MILLISECONDS.toNanos(event.offsetMillis) / speedup);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (event.command) {
+                oldestUnansweredCommand.computeIfAbsent(event.channelId, id -> new AtomicLong()).compareAndSet(0, System.nanoTime());
+            }
+            bot.onMessageReceived(event.event);
+        }
+        long offeredNanos = System.nanoTime() - start;
+        awaitLanesEmpty();
+        long handledNanos = System.nanoTime() - start;
+        // wrong answers are collected for a while before they are answered together
+        Thread.sleep(Long.getLong("bot.outbound.flushIntervalMillis", 750) + 250);
+        heapSampler.interrupt();
+
+        long limited = gauge("bot_admission_rejected_messages") - limitedBefore;
+        long dropped = ChannelLaneExecutor.getInstance().getRejectedTasks() - droppedBefore;
+        long replies = discord.getSentMessages() - repliesBefore;
+        System.gc();
+        long heapAfter = memoryMXBean.getHeapMemoryUsage().getUsed();
+        System.out.printf(Locale.ROOT, "%8.1f %10d %12.0f %12.0f %12.0f %10.2f %10.2f %10.2f %10.2f %10d %10d %+12.1f %12.1f%n",
+                speedup, events.size(),
+                perSecond(events.size(), offeredNanos),
+                perSecond(events.size() - limited - dropped, handledNanos),
+                perSecond(replies, handledNanos),
+                millis(replyLatencies.getPercentile(50)), millis(replyLatencies.getPercentile(99)),
+                millis(replyLatencies.getPercentile(99.9)), millis(replyLatencies.getPercentile(100)),
+                limited, dropped,
+                (heapAfter - heapBefore) / 1_048_576.0, heapPeak.get() / 1_048_576.0);
+        oldestUnansweredCommand.clear();
+    }
+
+    /**
+     * Waits until every message replayed was handled or the timeout passed
+     */
+    private static void awaitLanesEmpty() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (ChannelLaneExecutor.getInstance().getQueuedTasks() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void replySent(long channelId, CharSequence content) {
+        AtomicLong oldest = oldestUnansweredCommand.get(channelId);
+        if (oldest == null) {
+            return;
+        }
+        long replayedAt = oldest.getAndSet(0);
+        if (replayedAt != 0) {
+            replyLatencies.record(System.nanoTime() - replayedAt);
+        }
+    }
+
+    private static long gauge(String name) {
+        for (Metrics.Gauge gauge : Metrics.getInstance().getGauges()) {
+            if (gauge.getName().equals(name)) {
+                return gauge.getValue();
+            }
+        }
+        return 0;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return count * 1e9 / Math.max(1, nanos);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static List<RecordedMessage> readRecording(Path file) throws IOException {
+        List<RecordedMessage> messages = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    messages.add(gson.fromJson(line, RecordedMessage.class));
+                } catch (JsonParseException e) {
+                    // the last line may be cut off if the bot was killed while recording
+                    System.out.println("Skipping unreadable line " + lineNumber + " of " + file);
+                }
+            }
+        }
+        messages.sort(Comparator.comparingLong(RecordedMessage::getOffsetMillis));
+        return messages;
+    }
+
+    /**
+     * Channels that keep asking for questions and users that answer them, by number, by typing the answer and wrongly, between ordinary chat
+     */
+    private static List<RecordedMessage> synthesize(int channelCount, int userCount, int messagesPerSecond, int seconds) {
+        Random random = new Random(42);
+        int total = messagesPerSecond * seconds;
+        List<RecordedMessage> messages = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            long offsetMillis = (long) i * 1000 / messagesPerSecond;
+            long channelId = 1 + random.nextInt(channelCount);
+            long guildId = 1 + channelId % Math.max(1, channelCount / 10);
+            long authorId = 1 + random.nextInt(userCount);
+            int kind = random.nextInt(10);
+            String content;
+            if (kind == 0) {
+                content = "!question";
+            } else if (kind < 4) {
+                content = "!answer " + (1 + random.nextInt(3));
+            } else if (kind < 6) {
+                content = random.nextBoolean() ? "the right answer" : "the wrong answer";
+            } else {
+                content = "this is just somebody chatting " + i;
+            }
+            messages.add(new RecordedMessage(offsetMillis, guildId, channelId, authorId, content));
+        }
+        return messages;
+    }
+
+    private static final class TimedEvent {
+        private final long offsetMillis;
+        private final long channelId;
+        private final boolean command;
+        private final MessageReceivedEvent event;
+
+        private TimedEvent(long offsetMillis, long channelId, boolean command, MessageReceivedEvent event) {
+            this.offsetMillis = offsetMillis;
+            this.channelId = channelId;
+            this.command = command;
+            this.event = event;
+        }
+    }
+}
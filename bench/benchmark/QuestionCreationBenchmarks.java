@@ -0,0 +1,52 @@
+package benchmark;
+
+import benchmark.fake.FakeDiscord;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.QuestionCreationService;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole question creation from !createQuestion to !save, every one in a channel of its own
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionCreationBenchmarks {
+    private final FakeDiscord discord = new FakeDiscord();
+    private long next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkEnvironment.prepareBot();
+    }
+
+    @Benchmark
+    public void createToSave() {
+        long id = 2_000_000L + next++;
+        QuestionCreationService creation = QuestionCreationService.getInstance();
+        MessageChannel channel = discord.channel(id);
+        User creator = discord.user(id, "creator");
+        creation.createQuestion(discord.message(channel, creator, "!createQuestion"));
+        creation.infoAboutQuestionInCreation(discord.message(channel, creator, "who was the first man on the moon " + id));
+        creation.infoAboutQuestionInCreation(discord.message(channel, creator, "wrong Buzz Aldrin"));
+        creation.infoAboutQuestionInCreation(discord.message(channel, creator, "right Neil Armstrong"));
+        creation.infoAboutQuestionInCreation(discord.message(channel, creator, "!save"));
+        creation.abort(discord.message(channel, creator, "!abort"));
+    }
+}
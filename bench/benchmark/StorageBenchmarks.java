@@ -0,0 +1,137 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dataObjects.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import service.storage.BinaryQuestionFile;
+import service.storage.FsyncPolicy;
+import service.storage.IndexedJsonQuestionFile;
+import service.storage.QuestionBankConverter;
+import service.storage.QuestionJournal;
+import service.storage.StreamingQuestionReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The storage formats on question banks of different sizes. Add -p bankSize=1000000 for a bank of a million questions.
+ * Loading a whole bank is measured in milliseconds, single reads and writes in nanoseconds.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmarks {
+    private static final Gson gson = new Gson();
+
+    @Param({"1000", "10000", "100000"})
+    public int bankSize;
+
+    private Path directory;
+    private Path jsonFile;
+    private Path binaryFile;
+    private IndexedJsonQuestionFile indexedFile;
+    private BinaryQuestionFile binaryQuestionFile;
+    private QuestionJournal journal;
+    private final Question question = BenchmarkEnvironment.question(0);
+    private int nextIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("question-bench");
+        jsonFile = directory.resolve("storage.json");
+        binaryFile = directory.resolve("storage.bin");
+        writeJsonBank(jsonFile, bankSize);
+        QuestionBankConverter.jsonToBinary(jsonFile, binaryFile, gson);
+        indexedFile = new IndexedJsonQuestionFile(jsonFile, gson);
+        indexedFile.scan((questions, bytesRead, totalBytes) -> { });
+        binaryQuestionFile = new BinaryQuestionFile(binaryFile);
+        journal = new QuestionJournal(directory.resolve("storage.json.journal"), FsyncPolicy.NEVER, gson);
+        nextIndex = bankSize;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        indexedFile.close();
+        BenchmarkEnvironment.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int streamingLoad(Blackhole blackhole) throws IOException {
+        return StreamingQuestionReader.read(jsonFile, gson, blackhole::consume, (questions, bytesRead, totalBytes) -> { });
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int indexScan() throws IOException {
+        try (IndexedJsonQuestionFile file = new IndexedJsonQuestionFile(jsonFile, gson)) {
+            return file.scan((questions, bytesRead, totalBytes) -> { });
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int jsonToBinary() throws IOException {
+        return QuestionBankConverter.jsonToBinary(jsonFile, directory.resolve("converted.bin"), gson);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void snapshotWrite() throws IOException {
+        writeJsonBank(directory.resolve("snapshot.json"), bankSize);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Question indexedRandomGet() {
+        return indexedFile.get(ThreadLocalRandom.current().nextInt(bankSize));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Question binaryRandomGet() {
+        return binaryQuestionFile.get(ThreadLocalRandom.current().nextInt(bankSize));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void journalAppend() throws IOException {
+        journal.append(nextIndex++, question);
+    }
+
+    private static void writeJsonBank(Path file, int bankSize) throws IOException {
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (int i = 0; i < bankSize; i++) {
+                gson.toJson(BenchmarkEnvironment.question(i), Question.class, writer);
+            }
+            writer.endArray();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package benchmark.fake;
+
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.requests.restaction.MessageAction;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory stand-ins for the JDA entities the bot uses, so it can be driven without a connection to Discord.
+ * The entities are dynamic proxies answering only the methods the bot calls, any other method fails loudly.
+ * Messages sent are not delivered anywhere, they are counted and handed to the send listener.
+ */
+public class FakeDiscord {
+    /**
+     * Returned by the handlers for methods that are not faked
+     */
+    private static final Object UNSUPPORTED = new Object();
+
+    private final LongAdder sentMessages = new LongAdder();
+    private final AtomicLong nextMessageId = new AtomicLong();
+    private volatile SendListener sendListener = (channelId, content) -> { };
+
+    /**
+     * Gets informed about every message the bot queues for sending
+     */
+    @FunctionalInterface
+    public interface SendListener {
+        void sent(long channelId, CharSequence content);
+    }
+
+    public void setSendListener(SendListener sendListener) {
+        this.sendListener = sendListener;
+    }
+
+    /**
+     * @return how many messages the bot queued for sending
+     */
+    public long getSentMessages() {
+        return sentMessages.sum();
+    }
+
+    public MessageChannel channel(long id) {
+        String name = "channel-" + id;
+        return proxy(MessageChannel.class, name, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdLong":
+                    return id;
+                case "getId":
+                    return Long.toUnsignedString(id);
+                case "getName":
+                    return name;
+                case "getType":
+                    return ChannelType.PRIVATE;
+                case "sendMessage":
+                    return messageAction(id, (CharSequence) args[0]);
+                default:
+                    return UNSUPPORTED;
+            }
+        });
+    }
+
+    /**
+     * @return a text channel of the guild, messages sent in it count against the limits of the guild
+     */
+    public TextChannel guildChannel(long id, long guildId) {
+        String name = "channel-" + id;
+        Guild guild = proxy(Guild.class, "guild-" + guildId, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdLong":
+                    return guildId;
+                case "getId":
+                    return Long.toUnsignedString(guildId);
+                case "getName":
+                    return "guild-" + guildId;
+                default:
+                    return UNSUPPORTED;
+            }
+        });
+        return proxy(TextChannel.class, name, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdLong":
+                    return id;
+                case "getId":
+                    return Long.toUnsignedString(id);
+                case "getName":
+                    return name;
+                case "getType":
+                    return ChannelType.TEXT;
+                case "getGuild":
+                    return guild;
+                case "sendMessage":
+                    return messageAction(id, (CharSequence) args[0]);
+                default:
+                    return UNSUPPORTED;
+            }
+        });
+    }
+
+    public User user(long id, String name) {
+        return proxy(User.class, name, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdLong":
+                    return id;
+                case "getId":
+                    return Long.toUnsignedString(id);
+                case "getName":
+                    return name;
+                case "getAsMention":
+                    return "<@" + Long.toUnsignedString(id) + ">";
+                case "isBot":
+                    return false;
+                default:
+                    return UNSUPPORTED;
+            }
+        });
+    }
+
+    /**
+     * @return a message sent in the channel, from a guild if the channel is a {@link GuildChannel}
+     */
+    public Message message(MessageChannel channel, User author, String content) {
+        long id = nextMessageId.incrementAndGet();
+        Guild guild = channel instanceof GuildChannel ? ((GuildChannel) channel).getGuild() : null;
+        return proxy(Message.class, content, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdLong":
+                    return id;
+                case "getContentRaw":
+                    return content;
+                case "getChannel":
+                    return channel;
+                case "getAuthor":
+                    return author;
+                case "isFromGuild":
+                    return guild != null;
+                case "getGuild":
+                    return guild;
+                case "getChannelType":
+                    return guild != null ? ChannelType.TEXT : ChannelType.PRIVATE;
+                case "getMember":
+                    return null;
+                case "getAttachments":
+                    return List.of();
+                default:
+                    return UNSUPPORTED;
+            }
+        });
+    }
+
+    /**
+     * @return the event JDA would hand to the listeners for the message
+     */
+    public MessageReceivedEvent receivedEvent(Message message) {
+        return new MessageReceivedEvent(null, 0, message) {
+            @Override
+            public Message getMessage() {
+                return message;
+            }
+
+            @Override
+            public User getAuthor() {
+                return message.getAuthor();
+            }
+
+            @Override
+            public MessageChannel getChannel() {
+                return message.getChannel();
+            }
+        };
+    }
+
+    private MessageAction messageAction(long channelId, CharSequence content) {
+        return proxy(MessageAction.class, "message action", (proxy, method, args) -> {
+            if (method.getName().equals("queue") && method.getParameterCount() == 0) {
+                sentMessages.increment();
+                sendListener.sent(channelId, content);
+                return null;
+            }
+            return UNSUPPORTED;
+        });
+    }
+
+    /**
+     * Creates a proxy answering equals, hashCode and toString like an object and everything else with the handler.
+     * The handler returns UNSUPPORTED for methods it does not fake, calling them throws.
+     */
+    private static <T> T proxy(Class<T> type, String description, InvocationHandler handler) {
+        Object proxy = Proxy.newProxyInstance(FakeDiscord.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return description;
+                default:
+                    Object result = handler.invoke(self, method, args);
+                    if (result == UNSUPPORTED) {
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not faked");
+                    }
+                    return result;
+            }
+        });
+        return type.cast(proxy);
+    }
+}
@@ -1,32 +1,193 @@
+import com.google.gson.Gson;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
-import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import service.PlayQuestionService;
 import service.QuestionCreationService;
+import service.QuestionStorageService;
+import service.ScoreService;
+import service.admission.AdmissionController;
+import service.command.CommandDispatcher;
+import service.command.DefaultCommands;
+import service.config.Configuration;
+import service.config.JdaProfile;
+import service.execution.ChannelLaneExecutor;
+import service.metrics.Metrics;
+import service.metrics.MetricsHttpServer;
+import service.metrics.ResourceUsage;
+import service.recording.MessageRecorder;
+import service.state.ChannelResolver;
+import service.state.SessionSnapshotter;
+import service.state.ShardAssignment;
+import service.state.StateStores;
 
 import javax.security.auth.login.LoginException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main class where it all gets started. Messages are received and forwarded depending on their content.
  */
 public class Bot extends ListenerAdapter {
+    // before any setting below is read, they may come from the configuration file or the environment
+    static {
+        Configuration.load();
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(Bot.class);
+    private static final String TOKEN = System.getProperty("bot.token");
+    /**
+     * Which intents and caches the JDA client uses, see {@link JdaProfile}
+     */
+    private static final JdaProfile JDA_PROFILE = JdaProfile.valueOf(System.getProperty("bot.jda.profile", JdaProfile.LEAN.name()));
+    /**
+     * When the memory used is logged a second time after startup, once the caches had time to fill
+     */
+    private static final long STARTUP_REPORT_DELAY_SECONDS = Long.getLong("bot.startup.reportDelaySeconds", 60);
+    /**
+     * One in this many received messages is logged, and only at debug level
+     */
+    private static final int MESSAGE_LOG_SAMPLE_RATE = Integer.getInteger("bot.log.messageSampleRate", 100);
+    /**
+     * The port metrics are served on, no metrics are served if it is not set
+     */
+    private static final Integer METRICS_PORT = Integer.getInteger("bot.metrics.port");
+    private static final String METRICS_HOST = System.getProperty("bot.metrics.host", "127.0.0.1");
+    /**
+     * Which of the shards this process runs. Only a single shard is supported: the games and question creations are kept in the state store,
+     * but the global questions and the scores are kept by the process itself. Several shards would split the questions and the global leaderboard
+     * between them and lose the part of a guild that moves to another shard, so a shard total above 1 is refused.
+     */
+    private static final int SHARD_ID = Integer.getInteger("bot.shard.id", 0);
+    private static final int SHARD_TOTAL = Integer.getInteger("bot.shard.total", 1);
+    /**
+     * How often the running games and question creations are written to a snapshot, no snapshots are taken if this is 0
+     */
+    private static final long SNAPSHOT_INTERVAL_SECONDS = Long.getLong("bot.snapshots.intervalSeconds", 30);
+    /**
+     * How many snapshots are kept, older ones are deleted
+     */
+    private static final int SNAPSHOT_RETENTION = Integer.getInteger("bot.snapshots.retention", 3);
+    private static final Path SNAPSHOT_DIRECTORY = Path.of(System.getProperty("bot.snapshots.directory", "snapshots"));
+    /**
+     * The file received messages are recorded to for replaying them later, nothing is recorded if it is not set
+     */
+    private static final String RECORDING_FILE = System.getProperty("bot.recording.file");
+
+    /**
+     * Null unless messages are recorded
+     */
+    private final MessageRecorder messageRecorder;
 
-    public static void main(String[] args) throws LoginException {
-        JDABuilder jdaBuilder = JDABuilder.createDefault("Nzg0MTIwMTQ1MTU2NTA1NjYw.X8kqyg.JV8LqVoMEevCrloUckwvNskDK10");
+    public Bot() throws IOException {
+        DefaultCommands.registerAll(CommandDispatcher.getInstance());
+        messageRecorder = RECORDING_FILE == null ? null : new MessageRecorder(Path.of(RECORDING_FILE), new Gson());
+    }
+
+    public static void main(String[] args) throws LoginException, IOException, InterruptedException {
+        if (TOKEN == null || TOKEN.isBlank()) {
+            throw new IllegalStateException("No bot token configured, set bot.token in bot.properties or the environment variable DISCORD_TOKEN");
+        }
+        if (SHARD_TOTAL > 1) {
+            throw new IllegalStateException("Running several shards is not supported, the questions and the scores are kept by every process on its own. Set bot.shard.total to 1");
+        }
+        // opened before connecting, so a second bot using the same files stops right away
+        QuestionStorageService.getInstance();
+        ScoreService.getInstance();
+        ResourceUsage.registerGauges(Metrics.getInstance());
+        if (METRICS_PORT != null) {
+            new MetricsHttpServer(Metrics.getInstance(), METRICS_HOST, METRICS_PORT);
+        }
+        long connectStart = System.nanoTime();
+        JDABuilder jdaBuilder = JDA_PROFILE.createBuilder(TOKEN);
+        ShardAssignment shardAssignment = new ShardAssignment(SHARD_ID, SHARD_TOTAL);
 
         JDA build = jdaBuilder.build();
-        build.addEventListener(new Bot());
+        Bot bot = new Bot();
+        build.awaitReady();
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+        if (SNAPSHOT_INTERVAL_SECONDS > 0) {
+            // every shard gets a directory of its own, so shards sharing bot.snapshots.directory do not delete each other's snapshots
+            SessionSnapshotter snapshotter = new SessionSnapshotter(StateStores.getInstance(), shardAssignment,
+                    SNAPSHOT_DIRECTORY.resolve("shard-" + SHARD_ID), new Gson(), SNAPSHOT_RETENTION);
+            snapshotter.restoreLatest();
+            snapshotter.start(TimeUnit.SECONDS.toMillis(SNAPSHOT_INTERVAL_SECONDS));
+        }
+        restoreState(build, shardAssignment);
+        build.addEventListener(bot);
+        logger.info("Started with the {} profile {} ms after the JVM started, connecting to Discord took {} ms, {}",
+                JDA_PROFILE, ResourceUsage.getUptimeMillis(), connectMillis, ResourceUsage.describe());
+        logResourceUsageLater();
     }
 
+    /**
+     * Logs the memory used once more after a while, the caches of the default profile keep growing after the bot is ready
+     */
+    private static void logResourceUsageLater() {
+        if (STARTUP_REPORT_DELAY_SECONDS <= 0) {
+            return;
+        }
+        Thread reporter = new Thread(() -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(STARTUP_REPORT_DELAY_SECONDS));
+                logger.info("{} seconds after startup with the {} profile: {}", STARTUP_REPORT_DELAY_SECONDS, JDA_PROFILE, ResourceUsage.describe());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "startup-report");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+
+    /**
+     * Continues the games and question creations of this shard that were running when it stopped, possibly in another process.
+     * Direct message channels are not cached after a restart, they are opened again through their user.
+     */
+    private static void restoreState(JDA jda, ShardAssignment shardAssignment) {
+        ChannelResolver channels = (channelId, userId) -> {
+            MessageChannel channel = jda.getTextChannelById(channelId);
+            if (channel == null) {
+                channel = jda.getPrivateChannelById(channelId);
+            }
+            if (channel != null || userId == 0) {
+                return CompletableFuture.completedFuture(channel);
+            }
+            return jda.retrieveUserById(userId).flatMap(User::openPrivateChannel).submit().thenApply(MessageChannel.class::cast);
+        };
+        PlayQuestionService.getInstance().restoreGames(channels, shardAssignment);
+        QuestionCreationService.getInstance().restoreQuestionCreations(channels, shardAssignment);
+    }
+
+    /**
+     * Hands the message to the lane of its channel, so JDA's event thread is free again right away.
+     * Messages of users, channels or guilds over their rate limit are not handled at all.
+     */
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
+        if (event.getAuthor().isBot()) return;
+        if (messageRecorder != null) {
+            messageRecorder.record(event.getMessage());
+        }
+        if (!AdmissionController.getInstance().admit(event.getMessage())) return;
+        boolean accepted = ChannelLaneExecutor.getInstance().submit(event.getChannel().getIdLong(), () -> processMessage(event));
+        if (!accepted) {
+            logger.debug("Dropped message in channel {}, the bot is overloaded", event.getChannel().getIdLong());
+        }
+    }
+
+    private void processMessage(MessageReceivedEvent event) {
         try{
-            logger.info("Received message with text: {}", event.getMessage().getContentRaw());
+            if (logger.isDebugEnabled() && ThreadLocalRandom.current().nextInt(MESSAGE_LOG_SAMPLE_RATE) == 0) {
+                logger.debug("Received message with text: {}", event.getMessage().getContentRaw());
+            }
             handleMessage(event);
         }catch (Exception e){
             logger.warn("Could not process message", e);
@@ -36,32 +197,6 @@ public class Bot extends ListenerAdapter {
     }
 
     private void handleMessage(MessageReceivedEvent event) {
-        if (event.getAuthor().isBot()) return;
-        Message message = event.getMessage();
-        String content = message.getContentRaw();
-        if(content.equals("!abort")){
-            QuestionCreationService
-                    .getInstance()
-                    .abort(message);
-            PlayQuestionService
-                    .getInstance()
-                    .abort(message.getChannel());
-        } else if (content.equals("!createQuestion")) {
-            QuestionCreationService
-                    .getInstance()
-                    .createQuestion(message);
-        } else if(content.equals("!question")){
-            PlayQuestionService
-                    .getInstance()
-                    .questionCommandCalled(message.getChannel());
-        }else if(content.contains("!answer")){
-            PlayQuestionService
-                    .getInstance()
-                    .answerCommandCalled(content, message.getChannel(), message.getAuthor());
-        }else if(QuestionCreationService.getInstance().isQuestionCreationRunning(message.getChannel(), message.getAuthor())){
-            QuestionCreationService
-                    .getInstance()
-                    .infoAboutQuestionInCreation(message);
-        }
+        CommandDispatcher.getInstance().dispatch(event.getMessage());
     }
 }
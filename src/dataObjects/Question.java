@@ -1,28 +1,55 @@
 package dataObjects;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Represents a Question that can be created and played
+ * Represents a Question that can be created and played. Questions never change, so they can be shared between threads freely.
  */
 public class Question {
-    private String question;
+    private final String question;
     private final List<Answer> answers;
 
-    public Question() {
-        this.answers = new ArrayList<>();
+    /**
+     * Used when reading questions from json, answers missing in the json are an empty list then
+     */
+    private Question() {
+        this(null, List.of());
+    }
+
+    /**
+     * @param answers copied, changing the list afterwards does not change the question
+     */
+    public Question(String question, List<Answer> answers) {
+        this.question = question;
+        this.answers = List.copyOf(answers);
     }
 
     public String getQuestion() {
         return question;
     }
 
+    /**
+     * @return the answers, the list cannot be changed
+     */
     public List<Answer> getAnswers() {
-        return answers;
+        // questions read from json hold the list created by the json reader, or none if the json had none
+        return answers == null ? List.of() : Collections.unmodifiableList(answers);
     }
 
-    public void setQuestion(String question) {
-        this.question = question;
+    /**
+     * @return a copy of the question with a different question text
+     */
+    public Question withQuestion(String question) {
+        return new Question(question, answers);
+    }
+
+    /**
+     * @return a copy of the question with the answer added after the others
+     */
+    public Question withAnswer(Answer answer) {
+        Answer[] extended = answers.toArray(new Answer[answers.size() + 1]);
+        extended[answers.size()] = answer;
+        return new Question(question, List.of(extended));
     }
 }
@@ -5,30 +5,88 @@ import dataObjects.Question;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.execution.ChannelLaneExecutor;
+import service.execution.HashedWheelTimer;
+import service.messaging.OutboundMessageService;
+import service.metrics.Metrics;
 import service.progress.PlayQuestionProgress;
+import service.selection.QuestionSelector;
+import service.selection.SelectionMode;
+import service.state.ChannelResolver;
+import service.state.GameState;
+import service.state.ShardAssignment;
+import service.state.StateStore;
+import service.state.StateStores;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("ResultOfMethodCallIgnored")
 /**
  * Handles playing questions
  */
 public class PlayQuestionService {
+    private static final Logger logger = LoggerFactory.getLogger(PlayQuestionService.class);
+    private static final String ANSWER_COMMAND_PREFIX = "!answer ";
+    /**
+     * Returned instead of an index if the answer command is malformed
+     */
+    private static final int INVALID_ANSWER_COMMAND = Integer.MIN_VALUE;
+    /**
+     * How long a question can be answered before the right answer is revealed, rounds are not timed if this is 0
+     */
+    private static final long ROUND_SECONDS = Long.getLong("bot.rounds.durationSeconds", 60);
+    /**
+     * How many wrong answers are revealed while a round is running, spread evenly over the round. At least one wrong answer is never revealed.
+     */
+    private static final int HINTS = Integer.getInteger("bot.rounds.hints", 1);
+    private static final long ROUND_TIMER_TICK_MILLIS = Long.getLong("bot.rounds.tickMillis", 100);
+    private static final int ROUND_TIMER_WHEEL_SIZE = 1024;
+    private static final SelectionMode SELECTION_MODE = SelectionMode.valueOf(System.getProperty("bot.selection.mode", SelectionMode.DECK.name()));
+    /**
+     * Whether answers can also be typed as text instead of !answer with their number
+     */
+    private static final boolean FREE_TEXT_ANSWERS = Boolean.parseBoolean(System.getProperty("bot.answers.freeText", "true"));
+    private static final long SELECTION_WEIGHT_REFRESH_MILLIS = Long.getLong("bot.selection.weightRefreshMillis", 60_000);
+    // created after the settings above, the constructor uses them
     private static final PlayQuestionService instance = new PlayQuestionService();
 
     public static PlayQuestionService getInstance() {
         return instance;
     }
 
-    private final List<PlayQuestionProgress> currentlyRunningQuestions = new ArrayList<>();
-    private final Random random= new Random();
+    /**
+     * The questions currently played, keyed by the id of the channel they are played in.
+     * There is at most one question running per channel.
+     */
+    private final Map<Long, PlayQuestionProgress> currentlyRunningQuestions = new ConcurrentHashMap<>();
+    private final QuestionSelector questionSelector = new QuestionSelector(SELECTION_MODE, SELECTION_WEIGHT_REFRESH_MILLIS);
+    /**
+     * Chooses the questions of guild banks. Their numbers differ from guild to guild, so there are no weights shared between them.
+     */
+    private final QuestionSelector guildQuestionSelector = new QuestionSelector(SelectionMode.DECK, SELECTION_WEIGHT_REFRESH_MILLIS);
+    /**
+     * Ends timed rounds and reveals their hints, one timer serves all channels.
+     * It only hands them to the lane of their channel, so they are done in order with the messages of the channel and never block the timer.
+     */
+    private final HashedWheelTimer roundTimer = new HashedWheelTimer("round-timer", ROUND_TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS, ROUND_TIMER_WHEEL_SIZE);
+    /**
+     * Keeps the questions being played beyond a restart of this process
+     */
+    private final StateStore stateStore = StateStores.getInstance();
 
     private PlayQuestionService(){
-
+        Metrics.getInstance().registerGauge("bot_active_games", "Questions currently being played", currentlyRunningQuestions::size);
+        Metrics.getInstance().registerGauge("bot_round_timeouts", "Hints and round ends waiting to happen", roundTimer::getScheduledTimeouts);
     }
 
     /**
@@ -39,8 +97,8 @@ public class PlayQuestionService {
      * @param author the author of the answer
      */
     public void answerCommandCalled(String contentRaw, MessageChannel channel, User author) {
-        Integer indexOfAnswerChosen = getIndexOfAnswerChosen(contentRaw, channel);
-        if(indexOfAnswerChosen == null) {
+        int indexOfAnswerChosen = getIndexOfAnswerChosen(contentRaw, channel);
+        if(indexOfAnswerChosen == INVALID_ANSWER_COMMAND) {
             return;
         }
         PlayQuestionProgress questionProgressInChannel = getQuestionProgressInChannel(channel);
@@ -52,27 +110,72 @@ public class PlayQuestionService {
         if(correct == null){
             return;
         }
+        answered(questionProgressInChannel, correct, channel, author);
+    }
+
+    /**
+     * A message that is no command was sent in a channel. If a question is played there and the message is close enough to one of its answers,
+     * it counts as that answer. Anything else is ordinary chat and ignored.
+     * @return true if the message was taken as an answer
+     */
+    public boolean textAnswered(String contentRaw, MessageChannel channel, User author) {
+        if(!FREE_TEXT_ANSWERS){
+            return false;
+        }
+        PlayQuestionProgress questionProgressInChannel = currentlyRunningQuestions.get(channel.getIdLong());
+        if(questionProgressInChannel == null){
+            return false;
+        }
+        int indexOfAnswerChosen = questionProgressInChannel.getAnswerMatcher().match(contentRaw);
+        if(indexOfAnswerChosen < 0){
+            return false;
+        }
+        answered(questionProgressInChannel, questionProgressInChannel.getQuestion().getAnswers().get(indexOfAnswerChosen).isCorrect(), channel, author);
+        return true;
+    }
+
+    /**
+     * @return true if {@link #textAnswered(String, MessageChannel, User)} would take the message as an answer right now
+     */
+    public boolean isTextAnswer(String contentRaw, MessageChannel channel) {
+        if(!FREE_TEXT_ANSWERS){
+            return false;
+        }
+        PlayQuestionProgress questionProgressInChannel = currentlyRunningQuestions.get(channel.getIdLong());
+        return questionProgressInChannel != null && questionProgressInChannel.getAnswerMatcher().match(contentRaw) >= 0;
+    }
+
+    private void answered(PlayQuestionProgress questionProgressInChannel, boolean correct, MessageChannel channel, User author) {
+        if(!QuestionBankService.getInstance().isGuildScoped(channel)){
+            questionSelector.recordAnswer(questionProgressInChannel.getQuestionIndex(), correct);
+        }
         if(correct){
-            praiseUserForCorrectAnswerAndAbortQuestion(questionProgressInChannel, author, channel);
+            if(currentlyRunningQuestions.remove(channel.getIdLong(), questionProgressInChannel)){
+                questionProgressInChannel.cancelTimeouts();
+                removeState(channel.getIdLong());
+                praiseUserForCorrectAnswerAndAbortQuestion(author, channel);
+            }
         }else {
             informChosenAnswerIsWrong(author, channel);
         }
-
     }
 
+    /**
+     * Wrong answers are collected for a short time and answered together, so guessing users do not cause a message each
+     */
     private void informChosenAnswerIsWrong(User author, MessageChannel channel) {
-        channel.sendMessage(String.format("%s, we are sorry your answer was wrong.\nKeep guessing :))", author.getName())).queue();
+        OutboundMessageService.getInstance().queueFeedback(channel, author, "we are sorry your answer was wrong.\nKeep guessing :))");
     }
 
     /**
-     *
-     * @param questionProgressInChannel the object holding info about the currently played question, it needs to be removed from the list of currently played questions
+     * Only the first correct answer wins, so the question must already have been removed from the currently played questions by the caller.
+     * The winner gets a point.
      * @param author the author of the answer that was correct
      * @param channel the channel the user needs to be informed in about his success
      */
-    private void praiseUserForCorrectAnswerAndAbortQuestion(PlayQuestionProgress questionProgressInChannel, User author, MessageChannel channel) {
-        channel.sendMessage(String.format("%s, congratulations your answer was right.", author.getName())).queue();
-        currentlyRunningQuestions.remove(questionProgressInChannel);
+    private void praiseUserForCorrectAnswerAndAbortQuestion(User author, MessageChannel channel) {
+        ScoreService.getInstance().addPoints(channel, author, 1);
+        OutboundMessageService.getInstance().sendPriority(channel, String.format("%s, congratulations your answer was right.", author.getName()));
     }
 
     /**
@@ -82,7 +185,7 @@ public class PlayQuestionService {
      * @param channel the channel the conversation is happening in
      * @return true if the answer is correct false otherwise or null of index is invalid
      */
-    private Boolean isAnswerCorrect(Integer indexOfAnswerChosen, PlayQuestionProgress questionProgressInChannel, MessageChannel channel) {
+    private Boolean isAnswerCorrect(int indexOfAnswerChosen, PlayQuestionProgress questionProgressInChannel, MessageChannel channel) {
         List<Answer> answers = questionProgressInChannel.getQuestion().getAnswers();
         if(indexOfAnswerChosen<0 || answers.size()<= indexOfAnswerChosen){
             channel.sendMessage(String.format("There is no answer with index %d", indexOfAnswerChosen+1)).queue();
@@ -95,16 +198,35 @@ public class PlayQuestionService {
      *
      * @param contentRaw the message from the user
      * @param channel the channel the conversation is happening in
-     * @return the index of the answer selected or null if message does not have the proper format
+     * @return the index of the answer selected or INVALID_ANSWER_COMMAND if message does not have the proper format
      */
-    private Integer getIndexOfAnswerChosen(String contentRaw, MessageChannel channel) {
-        Pattern patterOfAnswerCommand = Pattern.compile("!answer (\\d+)");
-        Matcher matcher = patterOfAnswerCommand.matcher(contentRaw);
-        if(!matcher.matches()){
+    private int getIndexOfAnswerChosen(String contentRaw, MessageChannel channel) {
+        int number = parseAnswerNumber(contentRaw);
+        if(number < 0){
             channel.sendMessage("Invalid command").queue();
-            return null;
+            return INVALID_ANSWER_COMMAND;
         }
-        return Integer.parseInt(matcher.group(1))-1;
+        return number-1;
+    }
+
+    /**
+     * Reads the number from a message of the form "!answer 3" without creating any objects
+     * @return the number or -1 if the message does not have that form or the number is too large
+     */
+    private static int parseAnswerNumber(String contentRaw) {
+        int length = contentRaw.length();
+        if(length == ANSWER_COMMAND_PREFIX.length() || !contentRaw.startsWith(ANSWER_COMMAND_PREFIX)){
+            return -1;
+        }
+        int number = 0;
+        for (int i = ANSWER_COMMAND_PREFIX.length(); i < length; i++) {
+            int digit = contentRaw.charAt(i) - '0';
+            if(digit < 0 || digit > 9 || number > (Integer.MAX_VALUE - digit) / 10){
+                return -1;
+            }
+            number = number * 10 + digit;
+        }
+        return number;
     }
 
     /**
@@ -113,42 +235,206 @@ public class PlayQuestionService {
      */
     public void questionCommandCalled(MessageChannel channel) {
 
-        Question randomQuestion = getRandomQuestion(channel);
-        if(randomQuestion==null){
+        if(currentlyRunningQuestions.containsKey(channel.getIdLong())){
+            channel.sendMessage("There is already a question running in this channel. Answer it or use !abort first.").queue();
+            return;
+        }
+        // one version of the questions, so the number chosen and the question asked belong together
+        List<Question> questions;
+        try {
+            questions = QuestionBankService.getInstance().getQuestions(channel);
+        } catch (UncheckedIOException e) {
+            logger.error("Could not load the questions of channel {}", channel.getIdLong(), e);
+            channel.sendMessage("The questions of this server could not be loaded, please try again later").queue();
+            return;
+        }
+        int randomQuestionIndex = getRandomQuestionIndex(channel, questions);
+        if(randomQuestionIndex < 0){
+            return;
+        }
+        Question randomQuestion = questions.get(randomQuestionIndex);
+        PlayQuestionProgress playQuestionProgress = new PlayQuestionProgress(randomQuestion, randomQuestionIndex, channel);
+        if(currentlyRunningQuestions.putIfAbsent(channel.getIdLong(), playQuestionProgress) != null){
+            channel.sendMessage("There is already a question running in this channel. Answer it or use !abort first.").queue();
+            return;
+        }
+        askQuestion(channel, randomQuestionIndex, randomQuestion);
+        long roundEndsAt = ROUND_SECONDS <= 0 ? 0 : System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ROUND_SECONDS);
+        saveState(playQuestionProgress, roundEndsAt);
+        startRound(playQuestionProgress);
+    }
+
+    /**
+     * Continues the questions of this shard that were being played when the bot stopped.
+     * Hints already revealed are not repeated, only the end of the round is scheduled again.
+     * Rounds that should have ended while the bot was down end right away.
+     * Channels are looked up in the background, games whose channel cannot be looked up right now stay in the state store for the next start.
+     * @param channels looks up the channels of the stored games
+     */
+    public void restoreGames(ChannelResolver channels, ShardAssignment shardAssignment) {
+        List<CompletableFuture<Boolean>> restores = new ArrayList<>();
+        for (GameState game : stateStore.loadGames()) {
+            if (!shardAssignment.ownsGuild(game.getGuildId())) {
+                continue;
+            }
+            restores.add(channels.resolve(game.getChannelId(), game.getUserId()).handle((channel, error) -> restoreGame(game, channel, error)));
+        }
+        CompletableFuture.allOf(restores.toArray(new CompletableFuture<?>[0])).thenRun(() ->
+                logger.info("Restored {} running questions", restores.stream().filter(CompletableFuture::join).count()));
+    }
+
+    /**
+     * @return true if the game is running again
+     */
+    private boolean restoreGame(GameState game, MessageChannel channel, Throwable error) {
+        if (error != null) {
+            logger.warn("Could not look up channel {} to continue its question, it is kept for the next start", game.getChannelId(), error);
+            return false;
+        }
+        if (channel == null) {
+            removeState(game.getChannelId());
+            return false;
+        }
+        PlayQuestionProgress progress = new PlayQuestionProgress(game.getQuestion(), game.getQuestionIndex(), channel);
+        if (currentlyRunningQuestions.putIfAbsent(channel.getIdLong(), progress) != null) {
+            return false;
+        }
+        if (game.getRoundEndsAt() != 0) {
+            long remainingMillis = Math.max(0, game.getRoundEndsAt() - System.currentTimeMillis());
+            progress.setTimeouts(new HashedWheelTimer.Timeout[]{
+                    roundTimer.schedule(() -> submitEndRound(progress), remainingMillis, TimeUnit.MILLISECONDS)
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Writes the question being played to the state store. If that fails the game goes on, it is just lost on a restart.
+     */
+    private void saveState(PlayQuestionProgress progress, long roundEndsAt) {
+        try {
+            stateStore.putGame(new GameState(progress.getChannelId(), ShardAssignment.guildIdOf(progress.getChannel()),
+                    ShardAssignment.privateUserIdOf(progress.getChannel()), progress.getQuestionIndex(), progress.getQuestion(), roundEndsAt));
+        } catch (RuntimeException e) {
+            logger.warn("Could not store question played in channel {}", progress.getChannelId(), e);
+        }
+    }
+
+    private void removeState(long channelId) {
+        try {
+            stateStore.removeGame(channelId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove question played in channel {} from the state store", channelId, e);
+        }
+    }
+
+    /**
+     * Schedules the hints and the end of the round, if rounds are timed
+     */
+    private void startRound(PlayQuestionProgress progress) {
+        if(ROUND_SECONDS <= 0){
             return;
         }
-        askQuestion(channel, randomQuestion);
-        currentlyRunningQuestions.add(new PlayQuestionProgress(randomQuestion, channel));
+        long roundNanos = TimeUnit.SECONDS.toNanos(ROUND_SECONDS);
+        List<Integer> hintedAnswers = chooseHintedAnswers(progress.getQuestion());
+        HashedWheelTimer.Timeout[] timeouts = new HashedWheelTimer.Timeout[hintedAnswers.size() + 1];
+        for (int i = 0; i < hintedAnswers.size(); i++) {
+            int hintedAnswer = hintedAnswers.get(i);
+            long delay = roundNanos * (i + 1) / (hintedAnswers.size() + 1);
+            timeouts[i] = roundTimer.schedule(() -> ChannelLaneExecutor.getInstance().submit(progress.getChannelId(),
+                    () -> revealHint(progress, hintedAnswer)), delay, TimeUnit.NANOSECONDS);
+        }
+        timeouts[hintedAnswers.size()] = roundTimer.schedule(() -> submitEndRound(progress), roundNanos, TimeUnit.NANOSECONDS);
+        progress.setTimeouts(timeouts);
+    }
+
+    /**
+     * @return the indices of the wrong answers revealed as hints in the order they are revealed, leaving at least one wrong answer unrevealed
+     */
+    private List<Integer> chooseHintedAnswers(Question question) {
+        List<Integer> wrongAnswers = new ArrayList<>();
+        List<Answer> answers = question.getAnswers();
+        for (int i = 0; i < answers.size(); i++) {
+            if(!answers.get(i).isCorrect()){
+                wrongAnswers.add(i);
+            }
+        }
+        Collections.shuffle(wrongAnswers, ThreadLocalRandom.current());
+        return wrongAnswers.subList(0, Math.max(0, Math.min(HINTS, wrongAnswers.size() - 1)));
+    }
+
+    /**
+     * Runs on the lane of the channel, tells the channel one of the wrong answers if the question is still being played.
+     * A hint refused because the lane is full is dropped.
+     */
+    private void revealHint(PlayQuestionProgress progress, int wrongAnswerIndex) {
+        if(currentlyRunningQuestions.get(progress.getChannelId()) != progress){
+            return;
+        }
+        progress.getChannel().sendMessage(String.format("Hint: answer %d is wrong.", wrongAnswerIndex + 1)).queue();
+    }
+
+    /**
+     * Runs on the round timer and hands the end of the round to the lane of the channel.
+     * A round must end even if the lane is full right now, so it is tried again a tick later then.
+     */
+    private void submitEndRound(PlayQuestionProgress progress) {
+        if (!ChannelLaneExecutor.getInstance().submit(progress.getChannelId(), () -> endRound(progress))) {
+            roundTimer.schedule(() -> submitEndRound(progress), ROUND_TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs on the lane of the channel, ends the question and reveals the right answer unless somebody answered it or it was aborted in the meantime.
+     * Removing it from the state store may write a file, which must not hold up the round timer.
+     */
+    private void endRound(PlayQuestionProgress progress) {
+        if(!currentlyRunningQuestions.remove(progress.getChannelId(), progress)){
+            return;
+        }
+        removeState(progress.getChannelId());
+        StringBuilder rightAnswers = new StringBuilder();
+        List<Answer> answers = progress.getQuestion().getAnswers();
+        for (int i = 0; i < answers.size(); i++) {
+            if(answers.get(i).isCorrect()){
+                if(rightAnswers.length() > 0){
+                    rightAnswers.append(" and ");
+                }
+                rightAnswers.append(i + 1).append(": ").append(answers.get(i).getAnswer());
+            }
+        }
+        OutboundMessageService.getInstance().sendPriority(progress.getChannel(), "Time is up! Nobody found the right answer, it was " + rightAnswers);
     }
 
     /**
      * Sends a message to the user outlining the question and possible answers
      * @param channel the channel the conversation is happening in
+     * @param randomQuestionIndex the number of the question in the questions of the channel
      * @param randomQuestion the question that is asked
      */
-    private void askQuestion(MessageChannel channel, Question randomQuestion) {
-        String message= String.format("You have asked for a question. Here is your question:\n%s \n You have the following possibilities to answer: \n", randomQuestion.getQuestion());
-        List<Answer> answers = randomQuestion.getAnswers();
-        for (int i = 0; i < answers.size(); i++) {
-            Answer answer = answers.get(i);
-            message += String.format("Write !answer %d \n to answer: %s \n", i+1, answer.getAnswer());
-        }
-        channel.sendMessage(message).queue();
+    private void askQuestion(MessageChannel channel, int randomQuestionIndex, Question randomQuestion) {
+        // the prompt cache is keyed by the numbers of the global questions, guild banks number their questions on their own
+        String prompt = QuestionBankService.getInstance().isGuildScoped(channel)
+                ? QuestionPromptCache.render(randomQuestion)
+                : QuestionPromptCache.getInstance().getPrompt(randomQuestionIndex, randomQuestion);
+        channel.sendMessage(prompt).queue();
     }
 
     /**
-     *
-     * @return a random Question using the QuestionStorageService
+     * @param questions the version of the questions to choose from
+     * @return the number of the next Question to play in the channel or -1 if there is none
      */
-    private Question getRandomQuestion(MessageChannel channel) {
-        List<Question> questions = QuestionStorageService.getInstance()
-                .getQuestions();
+    private int getRandomQuestionIndex(MessageChannel channel, List<Question> questions) {
+        boolean guildScoped = QuestionBankService.getInstance().isGuildScoped(channel);
         if(questions.isEmpty()){
-            channel.sendMessage("No messages available").queue();
-            return null;
+            if(!guildScoped && QuestionStorageService.getInstance().isLoading()){
+                channel.sendMessage("The questions are still being loaded, please try again in a moment").queue();
+            }else {
+                channel.sendMessage("No messages available").queue();
+            }
+            return -1;
         }
-        return questions
-                .get(random.nextInt(questions.size()));
+        return (guildScoped ? guildQuestionSelector : questionSelector).next(channel.getIdLong(), questions.size());
     }
 
     /**
@@ -156,8 +442,11 @@ public class PlayQuestionService {
      * @param channel the channel that contains an !abort
      */
     public void abort(MessageChannel channel) {
-        PlayQuestionProgress questionProgressInChannel = getQuestionProgressInChannel(channel);
-        currentlyRunningQuestions.remove(questionProgressInChannel);
+        PlayQuestionProgress aborted = currentlyRunningQuestions.remove(channel.getIdLong());
+        if(aborted != null){
+            aborted.cancelTimeouts();
+            removeState(channel.getIdLong());
+        }
     }
 
     /**
@@ -166,12 +455,7 @@ public class PlayQuestionService {
      * @return a PlayQuestionProgress object containing info about the currently played question in said channel or null if no question is currently played
      */
     private PlayQuestionProgress getQuestionProgressInChannel(MessageChannel channel) {
-        for (PlayQuestionProgress playQuestionProgress:
-             currentlyRunningQuestions) {
-            if(playQuestionProgress.getChannel().equals(channel))
-                return playQuestionProgress;
-        }
-        return null;
+        return currentlyRunningQuestions.get(channel.getIdLong());
     }
 
 
@@ -0,0 +1,141 @@
+package service;
+
+import com.google.gson.Gson;
+import dataObjects.Question;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.banks.BankScope;
+import service.banks.GuildQuestionBank;
+import service.banks.GuildQuestionBankCache;
+import service.metrics.Metrics;
+import service.state.ShardAssignment;
+import service.storage.FsyncPolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which questions are played and extended in a channel.
+ * With bot.banks.scope=GLOBAL (the default) every channel shares the questions of the {@link QuestionStorageService}.
+ * With bot.banks.scope=GUILD every guild has a question bank of its own, read when the guild first plays or creates a question
+ * and evicted again when it was not used for a while. Private channels always use the global questions.
+ */
+public class QuestionBankService {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionBankService.class);
+
+    private static final BankScope SCOPE = BankScope.valueOf(System.getProperty("bot.banks.scope", BankScope.GLOBAL.name()));
+    private static final Path DIRECTORY = Path.of(System.getProperty("bot.banks.directory", "banks"));
+    private static final FsyncPolicy FSYNC_POLICY = FsyncPolicy.valueOf(System.getProperty("bot.banks.fsyncPolicy", FsyncPolicy.ALWAYS.name()));
+    /**
+     * Minutes a guild bank may be unused before it is flushed and evicted
+     */
+    private static final long IDLE_MINUTES = Long.getLong("bot.banks.idleMinutes", 30);
+    /**
+     * How many guild banks may be in memory at the same time
+     */
+    private static final int MAXIMUM_LOADED = Integer.getInteger("bot.banks.maxLoaded", 1000);
+    // created after the settings above, the constructor uses them
+    private static final QuestionBankService instance = new QuestionBankService();
+
+    public static QuestionBankService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Null unless the banks are scoped per guild
+     */
+    private final GuildQuestionBankCache guildBanks;
+
+    private QuestionBankService() {
+        if (SCOPE != BankScope.GUILD) {
+            guildBanks = null;
+            return;
+        }
+        try {
+            guildBanks = new GuildQuestionBankCache(DIRECTORY, new Gson(), FSYNC_POLICY, TimeUnit.MINUTES.toMillis(IDLE_MINUTES), MAXIMUM_LOADED);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create the directory of the guild question banks " + DIRECTORY, e);
+        }
+        Metrics.getInstance().registerGauge("bot_loaded_guild_banks", "Guild question banks currently in memory", guildBanks::size);
+    }
+
+    /**
+     * @return true if the channel has questions of its own instead of the global ones
+     */
+    public boolean isGuildScoped(MessageChannel channel) {
+        return guildBanks != null && ShardAssignment.guildIdOf(channel) != 0;
+    }
+
+    /**
+     * @return the current version of the questions played in the channel, it never changes
+     * @throws UncheckedIOException if the bank of the guild could not be read
+     */
+    public List<Question> getQuestions(MessageChannel channel) {
+        if (!isGuildScoped(channel)) {
+            return QuestionStorageService.getInstance().getQuestions();
+        }
+        return guildBanks.get(ShardAssignment.guildIdOf(channel)).getQuestions();
+    }
+
+    /**
+     * Reads the bank of the guild of the channel if it is not in memory yet, so it is ready once the question is saved
+     */
+    public void preload(MessageChannel channel) {
+        if (!isGuildScoped(channel)) {
+            return;
+        }
+        try {
+            guildBanks.get(ShardAssignment.guildIdOf(channel));
+        } catch (RuntimeException e) {
+            logger.warn("Could not load the question bank of guild {}", ShardAssignment.guildIdOf(channel), e);
+        }
+    }
+
+    /**
+     * Adds a question to the questions of the channel
+     * @return false if the question could not be persisted, it is still available until the bot restarts or the bank is evicted
+     */
+    public boolean addQuestion(MessageChannel channel, Question question) {
+        if (!isGuildScoped(channel)) {
+            return QuestionStorageService.getInstance().addQuestion(question);
+        }
+        long guildId = ShardAssignment.guildIdOf(channel);
+        try {
+            while (true) {
+                // the bank may be evicted between getting and adding to it, then it is loaded again
+                if (guildBanks.get(guildId).addQuestion(question) >= 0) {
+                    return true;
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not store question of guild {}!", guildId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds several questions to the questions of the channel at once, e.g. from an import
+     * @return false if the questions could not be persisted, they are still available until the bot restarts or the bank is evicted
+     */
+    public boolean addQuestions(MessageChannel channel, List<Question> questions) {
+        if (!isGuildScoped(channel)) {
+            return QuestionStorageService.getInstance().addQuestions(questions);
+        }
+        long guildId = ShardAssignment.guildIdOf(channel);
+        try {
+            while (true) {
+                // the bank may be evicted between getting and adding to it, then it is loaded again
+                if (guildBanks.get(guildId).addQuestions(questions) >= 0) {
+                    return true;
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not store {} questions of guild {}!", questions.size(), guildId, e);
+            return false;
+        }
+    }
+}
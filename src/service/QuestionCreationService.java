@@ -5,24 +5,60 @@ import dataObjects.Question;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.dedup.DuplicateMatch;
+import service.dedup.DuplicatePolicy;
+import service.metrics.CommandMetrics;
+import service.metrics.Metrics;
 import service.progress.QuestionCreationProgress;
+import service.progress.QuestionCreationSessionStore;
+import service.state.ChannelResolver;
+import service.state.CreationSessionState;
+import service.state.ShardAssignment;
+import service.state.StateStore;
+import service.state.StateStores;
+import service.validation.QuestionRules;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles the creation of questions
  */
 public class QuestionCreationService {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionCreationService.class);
+    /**
+     * Minutes a question creation may be idle before it is discarded
+     */
+    private static final long SESSION_TIME_TO_LIVE_MINUTES = Long.getLong("bot.creation.ttlMinutes", 30);
+    /**
+     * How many questions may be created at the same time
+     */
+    private static final int MAXIMUM_SESSIONS = Integer.getInteger("bot.creation.maxSessions", 10_000);
+    // created after the settings above, the constructor uses them
     private static final QuestionCreationService instance = new QuestionCreationService();
 
     public static QuestionCreationService getInstance() {
         return instance;
     }
-    private final List<QuestionCreationProgress> questionCreationProgresses = new ArrayList<>();
 
-    private QuestionCreationService(){
+    private final QuestionCreationSessionStore questionCreationProgresses = new QuestionCreationSessionStore(
+            TimeUnit.MINUTES.toMillis(SESSION_TIME_TO_LIVE_MINUTES),
+            MAXIMUM_SESSIONS,
+            this::informUserAboutExpiredQuestionCreation
+    );
 
+    private final CommandMetrics saveMetrics = Metrics.getInstance().command("!save");
+    /**
+     * Keeps the questions being created beyond a restart of this process
+     */
+    private final StateStore stateStore = StateStores.getInstance();
+
+    private QuestionCreationService(){
+        Metrics.getInstance().registerGauge("bot_creation_sessions", "Questions currently being created", questionCreationProgresses::size);
     }
 
     /**
@@ -30,16 +66,97 @@ public class QuestionCreationService {
      * @param message the message the user sent where he said he wants to create a question
      */
     public void createQuestion(Message message) {
+        QuestionCreationProgress questionCreationProgress = new QuestionCreationProgress(
+                QuestionCreationProgress.State.ASKED_FOR_QUESTION,
+                new Question(null, List.of()),
+                message.getAuthor(),
+                message.getChannel()
+        );
+        boolean stored = questionCreationProgresses.put(questionCreationProgress);
+        if(!stored){
+            message.getChannel().sendMessage("Too many questions are being created right now. Please try again later.").queue();
+            return;
+        }
+        saveState(questionCreationProgress);
         informUserAboutProcessOfCreatingAQuestion(message.getChannel());
-        questionCreationProgresses
-                .add(
-                        new QuestionCreationProgress(
-                                QuestionCreationProgress.State.ASKED_FOR_QUESTION,
-                                new Question(),
-                                message.getAuthor(),
-                                message.getChannel()
-                        )
-                );
+        // the bank is read while the user types the question, not when it is saved
+        QuestionBankService.getInstance().preload(message.getChannel());
+    }
+
+    private void informUserAboutExpiredQuestionCreation(QuestionCreationProgress questionCreationProgress) {
+        removeState(questionCreationProgress.getChannelId(), questionCreationProgress.getUserId());
+        questionCreationProgress.getChannel()
+                .sendMessage(String.format("%s, your question creation was discarded because you did not continue it for %d minutes.", questionCreationProgress.getUserName(), SESSION_TIME_TO_LIVE_MINUTES))
+                .queue();
+    }
+
+    /**
+     * Continues the question creations of this shard that were running when the bot stopped
+     * Channels are looked up in the background, creations whose channel cannot be looked up right now stay in the state store for the next start.
+     * @param channels looks up the channels of the stored creations
+     */
+    public void restoreQuestionCreations(ChannelResolver channels, ShardAssignment shardAssignment) {
+        List<CompletableFuture<Boolean>> restores = new ArrayList<>();
+        for (CreationSessionState session : stateStore.loadCreationSessions()) {
+            if (!shardAssignment.ownsGuild(session.getGuildId())) {
+                continue;
+            }
+            // in direct messages the creator is the other user of the channel
+            long privateUserId = session.getGuildId() == 0 ? session.getUserId() : 0;
+            restores.add(channels.resolve(session.getChannelId(), privateUserId).handle((channel, error) -> restoreQuestionCreation(session, channel, error)));
+        }
+        CompletableFuture.allOf(restores.toArray(new CompletableFuture<?>[0])).thenRun(() ->
+                logger.info("Restored {} question creations", restores.stream().filter(CompletableFuture::join).count()));
+    }
+
+    /**
+     * @return true if the creation can be continued again
+     */
+    private boolean restoreQuestionCreation(CreationSessionState session, MessageChannel channel, Throwable error) {
+        if (error != null) {
+            logger.warn("Could not look up channel {} to continue a question creation, it is kept for the next start", session.getChannelId(), error);
+            return false;
+        }
+        if (channel == null) {
+            removeState(session.getChannelId(), session.getUserId());
+            return false;
+        }
+        QuestionCreationProgress questionCreationProgress = new QuestionCreationProgress(
+                QuestionCreationProgress.State.valueOf(session.getState()),
+                session.getQuestion(),
+                session.getUserId(),
+                session.getUserName(),
+                channel,
+                session.getLastActivity()
+        );
+        return questionCreationProgresses.put(questionCreationProgress);
+    }
+
+    /**
+     * Writes the question creation to the state store. If that fails the creation goes on, it is just lost on a restart.
+     */
+    private void saveState(QuestionCreationProgress questionCreationProgress) {
+        try {
+            stateStore.putCreationSession(new CreationSessionState(
+                    questionCreationProgress.getChannelId(),
+                    ShardAssignment.guildIdOf(questionCreationProgress.getChannel()),
+                    questionCreationProgress.getUserId(),
+                    questionCreationProgress.getUserName(),
+                    questionCreationProgress.getState().name(),
+                    questionCreationProgress.getQuestion(),
+                    questionCreationProgress.getLastActivity()
+            ));
+        } catch (RuntimeException e) {
+            logger.warn("Could not store question creation in channel {}", questionCreationProgress.getChannelId(), e);
+        }
+    }
+
+    private void removeState(long channelId, long userId) {
+        try {
+            stateStore.removeCreationSession(channelId, userId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove question creation in channel {} from the state store", channelId, e);
+        }
     }
 
     private void informUserAboutProcessOfCreatingAQuestion(MessageChannel channel) {
@@ -53,12 +170,16 @@ public class QuestionCreationService {
      */
     public void infoAboutQuestionInCreation(Message message){
         QuestionCreationProgress questionBeingCreatedInChannelByUser = getQuestionBeingCreatedInChannelByUser(message.getChannel(), message.getAuthor());
-        assert questionBeingCreatedInChannelByUser != null;
+        if(questionBeingCreatedInChannelByUser == null){
+            return;
+        }
         if(questionBeingCreatedInChannelByUser.getState() == QuestionCreationProgress.State.ASKED_FOR_QUESTION){
             processAnswerForQuestionName(questionBeingCreatedInChannelByUser, message.getContentRaw(), message.getChannel());
         }else {
             if(message.getContentRaw().equals("!save")){
+                long start = System.nanoTime();
                 saveQuestion(questionBeingCreatedInChannelByUser, message.getChannel());
+                saveMetrics.record(System.nanoTime() - start);
                 return;
             }
             processAnswerForCreatingAnAnswer(questionBeingCreatedInChannelByUser, message.getContentRaw(), message.getChannel());
@@ -75,23 +196,35 @@ public class QuestionCreationService {
             channel.sendMessage("You need at least one correct answer.\nJust add one now and try to save afterwards. E.g. right Neil Armstrong\nLet's go: ").queue();
             return;
         }
-        QuestionStorageService.getInstance()
-                .getQuestions()
-                .add(questionBeingCreatedInChannelByUser.getQuestion());
-        QuestionStorageService.getInstance()
-                .storeQuestions();
+        // duplicates are only searched among the global questions, guild banks are small and belong to their guild alone
+        boolean guildScoped = QuestionBankService.getInstance().isGuildScoped(channel);
+        QuestionDeduplicationService questionDeduplicationService = QuestionDeduplicationService.getInstance();
+        DuplicateMatch duplicate = guildScoped ? null : questionDeduplicationService.findDuplicate(questionBeingCreatedInChannelByUser.getQuestion());
+        if(duplicate != null && questionDeduplicationService.getPolicy(duplicate) == DuplicatePolicy.REJECT){
+            channel.sendMessage(String.format("Your question was not saved, it is %s question #%d: %s\nChange it and try to save again or abort with !abort",
+                    duplicate.isExact() ? "the same as" : "too similar to", duplicate.getQuestionNumber(), getQuestionText(duplicate))).queue();
+            return;
+        }
+        boolean stored = QuestionBankService.getInstance()
+                .addQuestion(channel, questionBeingCreatedInChannelByUser.getQuestion());
+        if(!stored){
+            channel.sendMessage("Your question could not be stored permanently, it will be gone after the next restart.").queue();
+        }
+        if(duplicate != null){
+            channel.sendMessage(String.format("Your question was saved, but it is %s question #%d: %s",
+                    duplicate.isExact() ? "the same as" : "very similar to", duplicate.getQuestionNumber(), getQuestionText(duplicate))).queue();
+        }
+    }
+
+    private static String getQuestionText(DuplicateMatch duplicate) {
+        return QuestionStorageService.getInstance().getQuestions().get(duplicate.getQuestionNumber()).getQuestion();
     }
 
     /**
      * @return true if there is a least one correct answer in the question being created
      */
     private boolean hasOneCorrectAnswer(QuestionCreationProgress questionBeingCreatedInChannelByUser) {
-        for(Answer answer: questionBeingCreatedInChannelByUser.getQuestion().getAnswers()){
-            if(answer.isCorrect()){
-                return true;
-            }
-        }
-        return false;
+        return QuestionRules.hasOneCorrectAnswer(questionBeingCreatedInChannelByUser.getQuestion());
     }
 
     /**
@@ -101,9 +234,10 @@ public class QuestionCreationService {
      * @param channel the channel where we need to ask for answers to the question
      */
     private void processAnswerForQuestionName(QuestionCreationProgress questionBeingCreatedInChannelByUser, String contentRaw, MessageChannel channel) {
-        questionBeingCreatedInChannelByUser.getQuestion().setQuestion(contentRaw);
+        questionBeingCreatedInChannelByUser.setQuestion(questionBeingCreatedInChannelByUser.getQuestion().withQuestion(contentRaw));
         channel.sendMessage("Your question text has been noted. Please add some possible answers.\nPlease now enter the first answer by first writing wrong or right followed by the text for the answer.\nE.g. 'right Neil Armstrong' Enter your answer now: ").queue();
         questionBeingCreatedInChannelByUser.setState(QuestionCreationProgress.State.ASKED_FOR_ANSWER);
+        saveState(questionBeingCreatedInChannelByUser);
     }
 
     /**
@@ -117,7 +251,12 @@ public class QuestionCreationService {
         if(answer == null){
             return;
         }
-        questionBeingCreatedInChannelByUser.getQuestion().getAnswers().add(answer);
+        if(questionBeingCreatedInChannelByUser.getQuestion().getAnswers().size() >= QuestionRules.MAXIMUM_ANSWERS){
+            channel.sendMessage(String.format("A question can have at most %d answers. Save it with !save or abort with !abort.", QuestionRules.MAXIMUM_ANSWERS)).queue();
+            return;
+        }
+        questionBeingCreatedInChannelByUser.setQuestion(questionBeingCreatedInChannelByUser.getQuestion().withAnswer(answer));
+        saveState(questionBeingCreatedInChannelByUser);
         askUserForTheNextAnswer(channel);
     }
 
@@ -136,19 +275,17 @@ public class QuestionCreationService {
      * @return An object representing the Answer
      */
     private Answer parseAnswerObjectFromMessage(String contentRaw, MessageChannel channel) {
-        if(!(contentRaw.startsWith("wrong ") || contentRaw.startsWith("right "))){
+        Answer answer = QuestionRules.parseAnswer(contentRaw);
+        if(answer == null){
             channel.sendMessage("Invalid response. Please try again or abort with !abort. Your answer needs to begin with either 'right ' or 'wrong ").queue();
-            return null;
         }
-        return new Answer(contentRaw.substring(6), contentRaw.startsWith("right "));
+        return answer;
     }
 
 
     public void abort(Message message) {
-        QuestionCreationProgress questionBeingCreatedInChannelByUser = getQuestionBeingCreatedInChannelByUser(message.getChannel(), message.getAuthor());
-        if(questionBeingCreatedInChannelByUser!= null){
-            questionCreationProgresses.remove(questionBeingCreatedInChannelByUser);
-        }
+        questionCreationProgresses.remove(message.getChannel().getIdLong(), message.getAuthor().getIdLong());
+        removeState(message.getChannel().getIdLong(), message.getAuthor().getIdLong());
     }
 
     /**
@@ -162,11 +299,6 @@ public class QuestionCreationService {
      * @return info about the question being currently created by that user in this channel or null if none is being created
      */
     private QuestionCreationProgress getQuestionBeingCreatedInChannelByUser(MessageChannel channel, User user){
-        for(QuestionCreationProgress questionCreationProgress: questionCreationProgresses) {
-            if(questionCreationProgress.getChannel().equals(channel) && questionCreationProgress.getUser().equals(user)){
-                return questionCreationProgress;
-            }
-        }
-        return null;
+        return questionCreationProgresses.get(channel.getIdLong(), user.getIdLong());
     }
 }
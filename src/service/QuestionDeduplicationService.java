@@ -0,0 +1,110 @@
+package service;
+
+import dataObjects.Question;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.dedup.DuplicateIndex;
+import service.dedup.DuplicateMatch;
+import service.dedup.DuplicatePolicy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps track of the stored questions to notice when a question about to be saved duplicates one of them.
+ * The index is built in the background once the questions are loaded and follows every question added afterwards.
+ */
+public class QuestionDeduplicationService {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionDeduplicationService.class);
+
+    private static final DuplicatePolicy EXACT_DUPLICATE_POLICY = DuplicatePolicy.valueOf(System.getProperty("bot.dedup.exactDuplicates", DuplicatePolicy.REJECT.name()));
+    private static final DuplicatePolicy NEAR_DUPLICATE_POLICY = DuplicatePolicy.valueOf(System.getProperty("bot.dedup.nearDuplicates", DuplicatePolicy.WARN.name()));
+    /**
+     * The estimated share of words two questions need to have in common to be near duplicates
+     */
+    private static final double MINIMUM_SIMILARITY = Double.parseDouble(System.getProperty("bot.dedup.minimumSimilarity", "0.75"));
+
+    private static final QuestionDeduplicationService instance = new QuestionDeduplicationService();
+
+    public static QuestionDeduplicationService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Null until the index was built
+     */
+    private volatile DuplicateIndex duplicateIndex;
+    private final CompletableFuture<Void> indexed = new CompletableFuture<>();
+
+    private QuestionDeduplicationService() {
+        QuestionStorageService.getInstance().addQuestionAddedListener((index, question) -> catchUp());
+        Thread indexer = new Thread(this::buildIndex, "duplicate-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    private void buildIndex() {
+        try {
+            indexQuestions();
+        } finally {
+            indexed.complete(null);
+        }
+    }
+
+    private void indexQuestions() {
+        QuestionStorageService questionStorageService = QuestionStorageService.getInstance();
+        if (!questionStorageService.awaitLoaded()) {
+            logger.error("Questions could not be loaded, duplicates are not detected");
+            return;
+        }
+        long start = System.nanoTime();
+        List<Question> questions = questionStorageService.getQuestions();
+        DuplicateIndex built = DuplicateIndex.build(questions::get, questions.size());
+        synchronized (this) {
+            duplicateIndex = built;
+            catchUp();
+        }
+        logger.info("Fingerprinted {} questions for duplicate detection in {} ms", built.getQuestionCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Blocks until the stored questions are indexed, or indexing gave up because they could not be loaded
+     */
+    public void awaitIndexed() {
+        indexed.join();
+    }
+
+    /**
+     * Adds the questions stored since the index was last updated. Questions are only ever appended, so the index just follows the end of the list.
+     */
+    private synchronized void catchUp() {
+        DuplicateIndex index = duplicateIndex;
+        if (index == null) {
+            return;
+        }
+        List<Question> questions = QuestionStorageService.getInstance().getQuestions();
+        for (int i = index.getQuestionCount(); i < questions.size(); i++) {
+            index.add(i, questions.get(i));
+        }
+    }
+
+    /**
+     * @return the stored question the question duplicates and what to do about it, null if it is no duplicate,
+     * duplicates are allowed or the index is still being built
+     */
+    public DuplicateMatch findDuplicate(Question question) {
+        DuplicateIndex index = duplicateIndex;
+        if (index == null) {
+            return null;
+        }
+        DuplicateMatch match = index.findDuplicate(question, MINIMUM_SIMILARITY);
+        if (match == null || getPolicy(match) == DuplicatePolicy.ALLOW) {
+            return null;
+        }
+        return match;
+    }
+
+    public DuplicatePolicy getPolicy(DuplicateMatch match) {
+        return match.isExact() ? EXACT_DUPLICATE_POLICY : NEAR_DUPLICATE_POLICY;
+    }
+}
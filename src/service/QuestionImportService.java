@@ -0,0 +1,139 @@
+package service;
+
+import com.google.gson.Gson;
+import dataObjects.Question;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.dedup.DuplicateMatch;
+import service.dedup.DuplicatePolicy;
+import service.state.ShardAssignment;
+import service.transfer.ImportReport;
+import service.transfer.QuestionFileFormat;
+import service.transfer.QuestionImporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Adds many questions at once from a csv or jsonl file, either attached to an !import message or given to the offline tool.
+ * Imports run one after another on a thread of their own, so they never hold up the handling of other messages.
+ * With guild question banks an !import adds to the bank of the guild it was sent in, see {@link QuestionBankService}.
+ */
+public class QuestionImportService {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionImportService.class);
+    private static final int BATCH_SIZE = Integer.getInteger("bot.import.batchSize", 1000);
+    /**
+     * How many rejected lines are listed in the answer to !import, Discord messages are limited in length
+     */
+    private static final int REJECTIONS_SHOWN = 10;
+
+    private static final QuestionImportService instance = new QuestionImportService();
+
+    public static QuestionImportService getInstance() {
+        return instance;
+    }
+
+    private final Gson gson = new Gson();
+    private final QuestionImporter importer = new QuestionImporter(gson, BATCH_SIZE, this::findDuplicate,
+            QuestionStorageService.getInstance()::addQuestions);
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "question-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private QuestionImportService() {
+
+    }
+
+    /**
+     * A server manager wants to import questions. Let's read the attached file and tell them how it went.
+     * @param message the message containing the !import command and the file
+     */
+    public void importCommandCalled(Message message) {
+        MessageChannel channel = message.getChannel();
+        if (!message.isFromGuild() || message.getMember() == null || !message.getMember().hasPermission(Permission.MANAGE_SERVER)) {
+            channel.sendMessage("Only server managers can import questions.").queue();
+            return;
+        }
+        List<Message.Attachment> attachments = message.getAttachments();
+        QuestionFileFormat format = attachments.size() == 1 ? QuestionFileFormat.fromFileName(attachments.get(0).getFileName()) : null;
+        if (format == null) {
+            channel.sendMessage("Attach one .csv or .jsonl file to !import. A csv line holds the question followed by its answers, "
+                    + "e.g. Who was first on the moon?,right Neil Armstrong,wrong Buzz Aldrin").queue();
+            return;
+        }
+        Message.Attachment attachment = attachments.get(0);
+        channel.sendMessage(String.format("Importing questions from %s...", attachment.getFileName())).queue();
+        attachment.retrieveInputStream()
+                .thenAcceptAsync(input -> {
+                    ImportReport report = importFrom(input, format, channel);
+                    channel.sendMessage(report.summary(REJECTIONS_SHOWN)).queue();
+                }, importExecutor)
+                .exceptionally(e -> {
+                    logger.error("Could not import questions from {}", attachment.getFileName(), e);
+                    channel.sendMessage("The import failed, questions read up to the error were kept.").queue();
+                    return null;
+                });
+    }
+
+    private ImportReport importFrom(InputStream input, QuestionFileFormat format, MessageChannel channel) {
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            if (QuestionBankService.getInstance().isGuildScoped(channel)) {
+                return importIntoGuildBank(reader, format, channel);
+            }
+            return importQuestions(reader, format);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the questions", e);
+        }
+    }
+
+    /**
+     * Adds the valid questions of the file to the QuestionStorageService in batches.
+     * Waits until the stored questions are loaded and indexed, so duplicates of them are found.
+     * @param reader the file, it is not closed
+     */
+    public ImportReport importQuestions(Reader reader, QuestionFileFormat format) throws IOException {
+        QuestionDeduplicationService.getInstance().awaitIndexed();
+        long start = System.nanoTime();
+        ImportReport report = importer.importQuestions(reader, format);
+        logger.info("Imported {} questions and rejected {} in {} ms", report.getImported(), report.getRejected(), (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Adds the valid questions of the file to the question bank of the guild of the channel in batches.
+     * Like in the chat wizard they are not checked for duplicates, those are only searched among the global questions.
+     */
+    private ImportReport importIntoGuildBank(Reader reader, QuestionFileFormat format, MessageChannel channel) throws IOException {
+        QuestionBankService questionBankService = QuestionBankService.getInstance();
+        QuestionImporter guildImporter = new QuestionImporter(gson, BATCH_SIZE, question -> null,
+                questions -> questionBankService.addQuestions(channel, questions));
+        long start = System.nanoTime();
+        ImportReport report = guildImporter.importQuestions(reader, format);
+        logger.info("Imported {} questions into the bank of guild {} and rejected {} in {} ms", report.getImported(),
+                ShardAssignment.guildIdOf(channel), report.getRejected(), (System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Questions duplicating a stored one are rejected just like in the chat wizard, if the policy says so
+     */
+    private String findDuplicate(Question question) {
+        QuestionDeduplicationService questionDeduplicationService = QuestionDeduplicationService.getInstance();
+        DuplicateMatch duplicate = questionDeduplicationService.findDuplicate(question);
+        if (duplicate == null || questionDeduplicationService.getPolicy(duplicate) != DuplicatePolicy.REJECT) {
+            return null;
+        }
+        return String.format("%s question #%d", duplicate.isExact() ? "the same as" : "too similar to", duplicate.getQuestionNumber());
+    }
+}
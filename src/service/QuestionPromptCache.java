@@ -0,0 +1,100 @@
+package service;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the rendered text of the most recently asked questions, so popular questions are not rendered again every time they are asked.
+ * The least recently used prompts are dropped once either the number of prompts or their total length exceeds the limits.
+ */
+public class QuestionPromptCache {
+    private static final String PROMPT_START = "You have asked for a question. Here is your question:\n";
+    private static final String ANSWERS_START = " \n You have the following possibilities to answer: \n";
+    private static final String ANSWER_START = "Write !answer ";
+    private static final String ANSWER_MIDDLE = " \n to answer: ";
+    private static final String ANSWER_END = " \n";
+
+    private static final int MAXIMUM_PROMPTS = Integer.getInteger("bot.prompts.cacheSize", 10_000);
+    private static final long MAXIMUM_CHARACTERS = Long.getLong("bot.prompts.cacheCharacters", 8_000_000);
+
+    private static final QuestionPromptCache instance = new QuestionPromptCache();
+
+    public static QuestionPromptCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Prompts by the number of their question, iterated from least to most recently used
+     */
+    private final LinkedHashMap<Integer, String> prompts = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedCharacters;
+
+    private QuestionPromptCache() {
+        QuestionStorageService.getInstance().addQuestionAddedListener((index, question) -> invalidate(index));
+    }
+
+    /**
+     * @param index the number of the question in the QuestionStorageService
+     * @param question the question with that number
+     * @return the text asking the question and listing its answers
+     */
+    public String getPrompt(int index, Question question) {
+        synchronized (this) {
+            String prompt = prompts.get(index);
+            if (prompt != null) {
+                return prompt;
+            }
+        }
+        String prompt = render(question);
+        synchronized (this) {
+            String previous = prompts.put(index, prompt);
+            if (previous != null) {
+                cachedCharacters -= previous.length();
+            }
+            cachedCharacters += prompt.length();
+            evictLeastRecentlyUsed();
+        }
+        return prompt;
+    }
+
+    /**
+     * Drops the prompt of a question, needs to be called whenever the question with that number changes
+     */
+    public synchronized void invalidate(int index) {
+        String removed = prompts.remove(index);
+        if (removed != null) {
+            cachedCharacters -= removed.length();
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<Integer, String>> iterator = prompts.entrySet().iterator();
+        while ((prompts.size() > MAXIMUM_PROMPTS || cachedCharacters > MAXIMUM_CHARACTERS) && iterator.hasNext()) {
+            cachedCharacters -= iterator.next().getValue().length();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Builds the prompt in one buffer sized up front
+     */
+    static String render(Question question) {
+        List<Answer> answers = question.getAnswers();
+        String questionText = String.valueOf(question.getQuestion());
+        int length = PROMPT_START.length() + questionText.length() + ANSWERS_START.length();
+        for (Answer answer : answers) {
+            length += ANSWER_START.length() + 11 + ANSWER_MIDDLE.length() + String.valueOf(answer.getAnswer()).length() + ANSWER_END.length();
+        }
+        StringBuilder prompt = new StringBuilder(length);
+        prompt.append(PROMPT_START).append(questionText).append(ANSWERS_START);
+        for (int i = 0; i < answers.size(); i++) {
+            prompt.append(ANSWER_START).append(i + 1).append(ANSWER_MIDDLE).append(answers.get(i).getAnswer()).append(ANSWER_END);
+        }
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package service;
+
+import dataObjects.Question;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.search.SearchIndex;
+
+import java.util.List;
+
+/**
+ * Finds questions by the words in their question and answer texts.
+ * The index is built in the background once the questions are loaded and follows every question added afterwards.
+ */
+public class QuestionSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSearchService.class);
+    private static final int MAXIMUM_RESULTS = 10;
+    private static final int MAXIMUM_PREVIEW_LENGTH = 80;
+
+    private static final QuestionSearchService instance = new QuestionSearchService();
+
+    public static QuestionSearchService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Null until the index was built
+     */
+    private volatile SearchIndex searchIndex;
+
+    private QuestionSearchService() {
+        QuestionStorageService.getInstance().addQuestionAddedListener((index, question) -> catchUp());
+        Thread indexer = new Thread(this::buildIndex, "search-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    private void buildIndex() {
+        QuestionStorageService questionStorageService = QuestionStorageService.getInstance();
+        if (!questionStorageService.awaitLoaded()) {
+            logger.error("Questions could not be loaded, search is not available");
+            return;
+        }
+        long start = System.nanoTime();
+        List<Question> questions = questionStorageService.getQuestions();
+        SearchIndex built = SearchIndex.build(questions::get, questions.size());
+        synchronized (this) {
+            searchIndex = built;
+            catchUp();
+        }
+        logger.info("Indexed {} questions for search in {} ms", built.getQuestionCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds the questions stored since the index was last updated. Questions are only ever appended, so the index just follows the end of the list.
+     */
+    private synchronized void catchUp() {
+        SearchIndex index = searchIndex;
+        if (index == null) {
+            return;
+        }
+        List<Question> questions = QuestionStorageService.getInstance().getQuestions();
+        for (int i = index.getQuestionCount(); i < questions.size(); i++) {
+            index.add(i, questions.get(i));
+        }
+    }
+
+    /**
+     * A user searches for questions. Let's tell him the numbers and beginnings of the best matches.
+     * @param terms the words to search for
+     * @param channel the channel the search was sent in
+     */
+    public void searchCommandCalled(String terms, MessageChannel channel) {
+        SearchIndex index = searchIndex;
+        if (index == null) {
+            channel.sendMessage("The questions are still being indexed, please try again in a moment").queue();
+            return;
+        }
+        if (terms.isBlank()) {
+            channel.sendMessage("Write !search followed by the words you are looking for").queue();
+            return;
+        }
+        int[] results = index.search(terms, MAXIMUM_RESULTS);
+        if (results.length == 0) {
+            channel.sendMessage("No questions found").queue();
+            return;
+        }
+        List<Question> questions = QuestionStorageService.getInstance().getQuestions();
+        StringBuilder message = new StringBuilder("Questions found:\n");
+        for (int questionNumber : results) {
+            message.append('#').append(questionNumber).append(": ").append(preview(questions.get(questionNumber).getQuestion())).append('\n');
+        }
+        channel.sendMessage(message.toString()).queue();
+    }
+
+    private static String preview(String questionText) {
+        if (questionText == null) {
+            return "";
+        }
+        if (questionText.length() <= MAXIMUM_PREVIEW_LENGTH) {
+            return questionText;
+        }
+        return questionText.substring(0, MAXIMUM_PREVIEW_LENGTH) + "...";
+    }
+}
@@ -1,24 +1,101 @@
 package service;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import dataObjects.Question;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.metrics.LatencyHistogram;
+import service.metrics.Metrics;
+import service.storage.AppendOnlyQuestionList;
+import service.storage.BinaryQuestionFile;
+import service.storage.BinaryQuestionFileWriter;
+import service.storage.FsyncPolicy;
+import service.storage.IndexedJsonQuestionFile;
+import service.storage.LoadMode;
+import service.storage.ProcessLock;
+import service.storage.QuestionAddedListener;
+import service.storage.QuestionBank;
+import service.storage.QuestionBankConverter;
+import service.storage.QuestionJournal;
+import service.storage.StreamingQuestionReader;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Stores questions in a file so that they are persisted over reboots
+ * Stores questions in a file so that they are persisted over reboots.
+ * Saved questions are appended to a journal, which is compacted into the storage.json snapshot in the background.
+ * The snapshot is loaded in the background when the bot starts, questions can be played while it is still loading.
+ * <p>
+ * Readers get the questions as immutable versions: a version never changes, so it can be read from any thread without locks.
+ * Adding questions publishes a new version that shares all questions with the previous one, a batch of questions becomes a single version.
  */
 public class QuestionStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionStorageService.class);
+
     private static final String STORAGE_FILE_NAME = "storage.json";
     /**
-     * A file called storage.json in the current working directory(normally where it is started) of the program
+     * Where the questions are kept, the current working directory(normally where it is started) of the program by default
+     */
+    private static final Path STORAGE_DIRECTORY = Path.of(System.getProperty("bot.storage.directory", "."));
+    /**
+     * A file called storage.json in the storage directory
+     */
+    private static final Path STORAGE_FILE_PATH = STORAGE_DIRECTORY.resolve(STORAGE_FILE_NAME);
+    /**
+     * Questions saved since the last compaction, one json record per line
+     */
+    private static final Path JOURNAL_FILE_PATH = STORAGE_DIRECTORY.resolve(STORAGE_FILE_NAME + ".journal");
+    /**
+     * The journal being compacted right now. If it still exists on startup the compaction did not finish.
+     */
+    private static final Path COMPACTING_JOURNAL_FILE_PATH = STORAGE_DIRECTORY.resolve(STORAGE_FILE_NAME + ".journal.compacting");
+    private static final Path TEMPORARY_STORAGE_FILE_PATH = STORAGE_DIRECTORY.resolve(STORAGE_FILE_NAME + ".tmp");
+    /**
+     * The snapshot used instead of storage.json in the binary load mode
+     */
+    private static final Path BINARY_STORAGE_FILE_PATH = STORAGE_DIRECTORY.resolve("storage.bin");
+    private static final Path TEMPORARY_BINARY_STORAGE_FILE_PATH = STORAGE_DIRECTORY.resolve("storage.bin.tmp");
+    /**
+     * Held while the bot runs, so a second bot started with the same storage directory does not write the same journal
+     */
+    private static final Path LOCK_FILE_PATH = STORAGE_DIRECTORY.resolve(STORAGE_FILE_NAME + ".lock");
+
+    private static final LoadMode LOAD_MODE = LoadMode.valueOf(System.getProperty("bot.storage.loadMode", LoadMode.STREAMING.name()));
+    private static final FsyncPolicy FSYNC_POLICY = FsyncPolicy.valueOf(System.getProperty("bot.storage.fsyncPolicy", FsyncPolicy.ALWAYS.name()));
+    private static final long FSYNC_INTERVAL_MILLIS = Long.getLong("bot.storage.fsyncIntervalMillis", 1000);
+    private static final long COMPACTION_INTERVAL_MINUTES = Long.getLong("bot.storage.compactionIntervalMinutes", 10);
+    /**
+     * After this many journal records a compaction is started right away instead of waiting for the interval
+     */
+    private static final int COMPACTION_THRESHOLD = Integer.getInteger("bot.storage.compactionThreshold", 1000);
+
+    /**
+     * Closes the files of snapshots replaced by a compaction once no version of the questions reads from them anymore
      */
-    private static final Path STORAGE_FILE_PATH = Path.of(STORAGE_FILE_NAME);
+    private static final Cleaner snapshotCleaner = Cleaner.create(runnable -> {
+        Thread thread = new Thread(runnable, "question-snapshot-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private static final QuestionStorageService instance = new QuestionStorageService();
 
@@ -27,43 +104,500 @@ public class QuestionStorageService {
     }
 
     private final Gson gson = new Gson();
-    private List<Question> questions;
+    private final ScheduledExecutorService backgroundExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "question-storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final Object compactionLock = new Object();
+    private final CompletableFuture<Void> loading = new CompletableFuture<>();
+    private final List<QuestionAddedListener> questionAddedListeners = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram storageWrites = Metrics.getInstance().getStorageWrites();
+    /**
+     * The questions from the snapshot followed by the questions saved after it.
+     * Replaced as a whole when a snapshot read on demand is reopened after a compaction, the numbering of the questions stays the same.
+     */
+    private volatile QuestionLayers questionLayers = new QuestionLayers(new AppendOnlyQuestionList(), new AppendOnlyQuestionList());
+    /**
+     * All questions added so far, only used by the writers holding the lock
+     */
+    private final List<Question> questions = new QuestionListView();
+    /**
+     * The version readers get, replaced whenever questions were added
+     */
+    private volatile QuestionBankVersion currentVersion = new QuestionBankVersion(questionLayers, 0, 0);
+    /**
+     * How many of the questions are contained in the snapshot file, the others only exist in the journal
+     */
+    private int questionsInSnapshot;
+    private QuestionJournal journal;
 
     private QuestionStorageService(){
-        if(Files.exists(STORAGE_FILE_PATH)){
-            readQuestionsFromFile();
-        } else {
-            questions = new ArrayList<>();
+        try {
+            Files.createDirectories(STORAGE_DIRECTORY);
+            ProcessLock.acquire(LOCK_FILE_PATH);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not lock the question storage, another bot is using bot.storage.directory", e);
+        }
+        Thread loader = new Thread(this::loadQuestions, "question-loader");
+        loader.setDaemon(true);
+        loader.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeJournal, "question-storage-shutdown"));
+        Metrics.getInstance().registerGauge("bot_questions", "Questions stored", () -> currentVersion.size());
+    }
+
+    /**
+     * Loads the snapshot and the journals, then starts accepting new questions
+     */
+    private void loadQuestions() {
+        long start = System.nanoTime();
+        try {
+            if(LOAD_MODE == LoadMode.BINARY && !Files.exists(BINARY_STORAGE_FILE_PATH) && Files.exists(STORAGE_FILE_PATH)){
+                convertToBinary();
+            }
+            if(Files.exists(getSnapshotPath())){
+                readQuestionsFromFile();
+            }
+            synchronized (this) {
+                questionsInSnapshot = questions.size();
+                replayJournals();
+                openJournal();
+                publishVersion();
+            }
+            backgroundExecutor.scheduleWithFixedDelay(this::compactInBackground, COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+            if(FSYNC_POLICY == FsyncPolicy.INTERVAL){
+                backgroundExecutor.scheduleWithFixedDelay(this::syncJournal, FSYNC_INTERVAL_MILLIS, FSYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            logger.info("Loaded {} questions in {} ms", questions.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            loading.complete(null);
+        } catch (Exception e) {
+            // nothing is written while loading failed, fix or restore the files and restart
+            logger.error("Could not load questions! New questions are not saved and the storage files are left untouched.", e);
+            loading.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return storage.bin in the binary load mode, storage.json otherwise
+     */
+    private static Path getSnapshotPath() {
+        return LOAD_MODE == LoadMode.BINARY ? BINARY_STORAGE_FILE_PATH : STORAGE_FILE_PATH;
+    }
+
+    /**
+     * reads the snapshot file and uses its content to fill the questions list.
+     * A snapshot that cannot be read completely fails loading, so no compaction ever overwrites it with the part that was read.
+     */
+    private void readQuestionsFromFile() throws IOException {
+        switch (LOAD_MODE) {
+            case INDEXED:
+                IndexedJsonQuestionFile indexedFile = new IndexedJsonQuestionFile(STORAGE_FILE_PATH, gson);
+                questionLayers = new QuestionLayers(indexedFile, new AppendOnlyQuestionList());
+                indexedFile.scan(this::publishLoadingProgress);
+                break;
+            case BINARY:
+                questionLayers = new QuestionLayers(new BinaryQuestionFile(BINARY_STORAGE_FILE_PATH), new AppendOnlyQuestionList());
+                publishVersion();
+                break;
+            default:
+                AppendOnlyQuestionList snapshotQuestions = (AppendOnlyQuestionList) questionLayers.snapshot;
+                StreamingQuestionReader.read(STORAGE_FILE_PATH, gson, snapshotQuestions::add, this::publishLoadingProgress);
         }
     }
 
     /**
-     * reads the storage.json file and uses its content to fill the questions list
+     * Creates storage.bin from storage.json, storage.json is left untouched
+     */
+    private void convertToBinary() throws IOException {
+        int converted = QuestionBankConverter.jsonToBinary(STORAGE_FILE_PATH, TEMPORARY_BINARY_STORAGE_FILE_PATH, gson);
+        Files.move(TEMPORARY_BINARY_STORAGE_FILE_PATH, BINARY_STORAGE_FILE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Converted {} questions from {} to {}", converted, STORAGE_FILE_PATH, BINARY_STORAGE_FILE_PATH);
+    }
+
+    /**
+     * Makes the questions loaded so far available to readers
+     */
+    private void publishLoadingProgress(int questionsLoaded, long bytesRead, long totalBytes) {
+        publishVersion();
+        logLoadingProgress(questionsLoaded, bytesRead, totalBytes);
+    }
+
+    private void logLoadingProgress(int questionsLoaded, long bytesRead, long totalBytes) {
+        logger.info("Loading questions: {} questions, {}% of {}", questionsLoaded, totalBytes == 0 ? 100 : bytesRead * 100 / totalBytes, getSnapshotPath());
+    }
+
+    /**
+     * Adds the questions saved after the snapshot was written. Records already contained in the snapshot are skipped.
+     * A corrupt journal fails loading like a corrupt snapshot, the questions after the corruption would be lost otherwise.
      */
-    private void readQuestionsFromFile() {
+    private void replayJournals() throws IOException {
+        for (Path journalPath : List.of(COMPACTING_JOURNAL_FILE_PATH, JOURNAL_FILE_PATH)) {
+            QuestionJournal.replay(journalPath, gson, record -> {
+                if (record.getIndex() < questions.size()) {
+                    return;
+                }
+                if (record.getIndex() > questions.size()) {
+                    logger.warn("Journal record {} does not follow question {}, questions might be missing", record.getIndex(), questions.size() - 1);
+                }
+                questionLayers.saved.add(record.getQuestion());
+            });
+        }
+    }
+
+    private void openJournal() {
         try {
-            questions= gson.fromJson(Files.readString(STORAGE_FILE_PATH), new TypeToken<ArrayList<Question>>(){}.getType());
+            journal = new QuestionJournal(JOURNAL_FILE_PATH, FSYNC_POLICY, gson);
         } catch (IOException e) {
-            System.out.println("Could not read questions!");
-            e.printStackTrace();
-            questions = new ArrayList<>();
+            throw new IllegalStateException("Could not open question journal", e);
+        }
+    }
+
+    /**
+     * Adds a question and appends it to the journal. Waits until the questions are loaded if they are not yet.
+     * @return false if the question could not be persisted, it is still available until the bot restarts
+     */
+    public boolean addQuestion(Question question) {
+        if (!awaitLoaded()) {
+            return false;
+        }
+        int index;
+        boolean persisted = true;
+        synchronized (this) {
+            index = questions.size();
+            questionLayers.saved.add(question);
+            publishVersion();
+            long start = System.nanoTime();
+            try {
+                journal.append(index, question);
+                storageWrites.record(System.nanoTime() - start);
+            } catch (IOException e) {
+                logger.error("Could not store question!", e);
+                persisted = false;
+            }
+            if (questions.size() - questionsInSnapshot >= COMPACTION_THRESHOLD && compactionScheduled.compareAndSet(false, true)) {
+                backgroundExecutor.execute(this::compactInBackground);
+            }
+        }
+        for (QuestionAddedListener listener : questionAddedListeners) {
+            listener.questionAdded(index, question);
+        }
+        return persisted;
+    }
+
+    /**
+     * Adds several questions at once, e.g. from an import. They are appended to the journal with a single write and get consecutive numbers.
+     * Waits until the questions are loaded if they are not yet.
+     * @return false if the questions could not be persisted, they are still available until the bot restarts
+     */
+    public boolean addQuestions(List<Question> questionsToAdd) {
+        if (questionsToAdd.isEmpty()) {
+            return true;
+        }
+        if (!awaitLoaded()) {
+            return false;
+        }
+        int firstIndex;
+        boolean persisted = true;
+        synchronized (this) {
+            firstIndex = questions.size();
+            for (Question question : questionsToAdd) {
+                questionLayers.saved.add(question);
+            }
+            publishVersion();
+            long start = System.nanoTime();
+            try {
+                journal.appendAll(firstIndex, questionsToAdd);
+                storageWrites.record(System.nanoTime() - start);
+            } catch (IOException e) {
+                logger.error("Could not store {} questions!", questionsToAdd.size(), e);
+                persisted = false;
+            }
+            if (questions.size() - questionsInSnapshot >= COMPACTION_THRESHOLD && compactionScheduled.compareAndSet(false, true)) {
+                backgroundExecutor.execute(this::compactInBackground);
+            }
+        }
+        for (int i = 0; i < questionsToAdd.size(); i++) {
+            for (QuestionAddedListener listener : questionAddedListeners) {
+                listener.questionAdded(firstIndex + i, questionsToAdd.get(i));
+            }
+        }
+        return persisted;
+    }
+
+    /**
+     * @param listener called after every question added with {@link #addQuestion(Question)} or {@link #addQuestions(List)}, on the thread adding it
+     */
+    public void addQuestionAddedListener(QuestionAddedListener listener) {
+        questionAddedListeners.add(listener);
+    }
+
+    /**
+     * @return true while the questions stored are still being loaded, only part of them are available then
+     */
+    public boolean isLoading() {
+        return !loading.isDone();
+    }
+
+    /**
+     * Blocks until all stored questions are loaded
+     * @return false if loading failed
+     */
+    public boolean awaitLoaded() {
+        try {
+            loading.join();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void compactInBackground() {
+        compactionScheduled.set(false);
+        try {
+            storeQuestions();
+        } catch (Exception e) {
+            logger.error("Could not compact question journal", e);
         }
     }
 
     /**
-     * Uses the questions list and writes its data into the storage.json file
+     * Writes all questions into the storage.json file and drops the journal records contained in it.
+     * The file is replaced atomically, a crash leaves either the old or the new snapshot.
      */
     public void storeQuestions(){
-        String questionsAsString = gson.toJson(questions);
+        if (!awaitLoaded()) {
+            return;
+        }
+        synchronized (compactionLock) {
+            compactJournal();
+        }
+    }
+
+    private void compactJournal() {
+        int questionsToStore;
+        List<Question> frozenQuestions;
+        synchronized (this) {
+            frozenQuestions = currentVersion;
+            questionsToStore = frozenQuestions.size();
+            if (questionsToStore == questionsInSnapshot) {
+                return;
+            }
+            try {
+                if (!Files.exists(COMPACTING_JOURNAL_FILE_PATH)) {
+                    journal.rotateTo(COMPACTING_JOURNAL_FILE_PATH);
+                }
+            } catch (IOException e) {
+                logger.error("Could not rotate question journal", e);
+                return;
+            }
+        }
+        try {
+            long start = System.nanoTime();
+            if (LOAD_MODE == LoadMode.BINARY) {
+                writeBinarySnapshot(frozenQuestions);
+            } else {
+                writeSnapshot(frozenQuestions);
+            }
+            storageWrites.record(System.nanoTime() - start);
+            if (LOAD_MODE.readsOnDemand()) {
+                reopenSnapshot(questionsToStore);
+            }
+            Files.deleteIfExists(COMPACTING_JOURNAL_FILE_PATH);
+            synchronized (this) {
+                questionsInSnapshot = questionsToStore;
+            }
+            logger.info("Compacted {} questions into {}", questionsToStore, getSnapshotPath());
+        } catch (IOException e) {
+            logger.error("Could not store questions!", e);
+        }
+    }
+
+    /**
+     * Streams the questions into a temporary file and moves it over the snapshot
+     * @param questionsToStore a version of the questions, questions added later are left to the journal
+     */
+    private void writeSnapshot(List<Question> questionsToStore) throws IOException {
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(TEMPORARY_STORAGE_FILE_PATH, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (Question question : questionsToStore) {
+                gson.toJson(question, Question.class, writer);
+            }
+            writer.endArray();
+        }
+        try (FileChannel channel = FileChannel.open(TEMPORARY_STORAGE_FILE_PATH, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(TEMPORARY_STORAGE_FILE_PATH, STORAGE_FILE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Streams the questions into a temporary binary file and moves it over storage.bin
+     * @param questionsToStore a version of the questions, questions added later are left to the journal
+     */
+    private void writeBinarySnapshot(List<Question> questionsToStore) throws IOException {
+        try (BinaryQuestionFileWriter writer = new BinaryQuestionFileWriter(TEMPORARY_BINARY_STORAGE_FILE_PATH)) {
+            for (Question question : questionsToStore) {
+                writer.write(question);
+            }
+        }
+        Files.move(TEMPORARY_BINARY_STORAGE_FILE_PATH, BINARY_STORAGE_FILE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens the new snapshot and moves the questions saved after it was written on top of it
+     * @param questionsInNewSnapshot how many questions the new snapshot contains
+     */
+    private void reopenSnapshot(int questionsInNewSnapshot) throws IOException {
+        QuestionBank snapshot;
+        if (LOAD_MODE == LoadMode.BINARY) {
+            snapshot = new BinaryQuestionFile(BINARY_STORAGE_FILE_PATH);
+        } else {
+            IndexedJsonQuestionFile indexedFile = new IndexedJsonQuestionFile(STORAGE_FILE_PATH, gson);
+            indexedFile.scan((questionsLoaded, bytesRead, totalBytes) -> { });
+            snapshot = indexedFile;
+        }
+        synchronized (this) {
+            AppendOnlyQuestionList savedAfterSnapshot = new AppendOnlyQuestionList();
+            for (int i = questionsInNewSnapshot; i < questions.size(); i++) {
+                savedAfterSnapshot.add(questions.get(i));
+            }
+            // the previous layers are closed by the cleaner once the last version reading them is gone
+            questionLayers = new QuestionLayers(snapshot, savedAfterSnapshot);
+            publishVersion();
+        }
+    }
+
+    private void syncJournal() {
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            logger.error("Could not sync question journal", e);
+        }
+    }
+
+    private synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
         try {
-            Files.writeString(STORAGE_FILE_PATH, questionsAsString);
+            journal.close();
         } catch (IOException e) {
-            System.out.println("Could not store questions!");
-            e.printStackTrace();
+            logger.error("Could not close question journal", e);
         }
     }
 
+    /**
+     * @return the current version of the stored questions, it never changes. Call again to see questions added later or still being loaded.
+     * Use {@link #addQuestion(Question)} to add new ones.
+     */
     public List<Question> getQuestions() {
-        return questions;
+        return currentVersion;
+    }
+
+    /**
+     * Makes all questions added so far visible to readers as a new version
+     */
+    private synchronized void publishVersion() {
+        QuestionLayers layers = questionLayers;
+        int snapshotSize = layers.snapshot.size();
+        currentVersion = new QuestionBankVersion(layers, snapshotSize, snapshotSize + layers.saved.size());
+    }
+
+    /**
+     * The questions of the snapshot and the questions saved after it.
+     * A snapshot read from a file on demand is closed when its layers become unreachable: every version holds its layers,
+     * so the file stays open for as long as anybody can still read from it.
+     */
+    private static final class QuestionLayers {
+        private final QuestionBank snapshot;
+        private final AppendOnlyQuestionList saved;
+
+        private QuestionLayers(QuestionBank snapshot, AppendOnlyQuestionList saved) {
+            this.snapshot = snapshot;
+            this.saved = saved;
+            if (snapshot instanceof Closeable) {
+                snapshotCleaner.register(this, new SnapshotCloser((Closeable) snapshot));
+            }
+        }
+    }
+
+    /**
+     * Closes the file of a snapshot, it must not refer to its layers or they would never become unreachable
+     */
+    private static final class SnapshotCloser implements Runnable {
+        private final Closeable snapshot;
+
+        private SnapshotCloser(Closeable snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void run() {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                logger.warn("Could not close replaced question snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * One version of the questions: the first questions of the layers as they were when it was published.
+     * The layers only ever grow, so the questions of a version stay the same without copying them.
+     */
+    private static final class QuestionBankVersion extends AbstractList<Question> implements RandomAccess {
+        private final QuestionLayers layers;
+        private final int snapshotSize;
+        private final int size;
+
+        private QuestionBankVersion(QuestionLayers layers, int snapshotSize, int size) {
+            this.layers = layers;
+            this.snapshotSize = snapshotSize;
+            this.size = size;
+        }
+
+        @Override
+        public Question get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            if (index >= snapshotSize) {
+                return layers.saved.get(index - snapshotSize);
+            }
+            try {
+                return layers.snapshot.get(index);
+            } finally {
+                // the snapshot file must not be closed while it is read, which could happen once the layers are no longer used otherwise
+                Reference.reachabilityFence(layers);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A read only list showing the snapshot questions followed by the saved questions as they are right now
+     */
+    private final class QuestionListView extends AbstractList<Question> {
+        @Override
+        public Question get(int index) {
+            QuestionLayers layers = questionLayers;
+            int snapshotSize = layers.snapshot.size();
+            try {
+                return index < snapshotSize ? layers.snapshot.get(index) : layers.saved.get(index - snapshotSize);
+            } finally {
+                Reference.reachabilityFence(layers);
+            }
+        }
+
+        @Override
+        public int size() {
+            QuestionLayers layers = questionLayers;
+            return layers.snapshot.size() + layers.saved.size();
+        }
     }
 }
@@ -0,0 +1,199 @@
+package service;
+
+import com.google.gson.Gson;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.scores.Leaderboard;
+import service.scores.ScoreEntry;
+import service.scores.ScoreRecord;
+import service.scores.ScoreStore;
+import service.state.ShardAssignment;
+import service.storage.ProcessLock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the points users get for answering questions correctly, per guild and across all guilds.
+ * Points are counted in memory right away and written to disk in batches on an interval, so answering never waits for the disk.
+ */
+public class ScoreService {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreService.class);
+    private static final Path SCORES_FILE_PATH = Path.of(System.getProperty("bot.scores.file", "scores.json"));
+    /**
+     * Held while the bot runs, so a second bot started with the same scores file does not write the same journal
+     */
+    private static final Path LOCK_FILE_PATH = Path.of(SCORES_FILE_PATH + ".lock");
+    private static final long FLUSH_INTERVAL_MILLIS = Long.getLong("bot.scores.flushIntervalMillis", 5000);
+    private static final int LEADERBOARD_SIZE = Integer.getInteger("bot.scores.leaderboardSize", 10);
+    /**
+     * Points gained outside of a guild are kept under this guild id
+     */
+    private static final long NO_GUILD = 0;
+
+    private static final ScoreService instance = new ScoreService();
+
+    public static ScoreService getInstance() {
+        return instance;
+    }
+
+    private final Leaderboard globalLeaderboard = new Leaderboard(LEADERBOARD_SIZE);
+    private final Map<Long, Leaderboard> guildLeaderboards = new ConcurrentHashMap<>();
+    /**
+     * Points gained since the last flush, by guild and user
+     */
+    private final Map<ScoreKey, PendingPoints> pendingPoints = new ConcurrentHashMap<>();
+    private final ScoreStore scoreStore = new ScoreStore(SCORES_FILE_PATH, new Gson());
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "score-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScoreService() {
+        try {
+            Files.createDirectories(SCORES_FILE_PATH.toAbsolutePath().getParent());
+            ProcessLock.acquire(LOCK_FILE_PATH);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not lock the scores, another bot is using bot.scores.file", e);
+        }
+        loadScores();
+        flushExecutor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "score-writer-shutdown"));
+    }
+
+    /**
+     * Reads the scores and writes them back as a single snapshot, so the journal does not grow across restarts
+     */
+    private void loadScores() {
+        try {
+            scoreStore.load(record -> addToLeaderboards(record.getGuildId(), record.getUserId(), record.getUserName(), record.getPoints()));
+            scoreStore.compact(collectTotals());
+        } catch (IOException e) {
+            logger.error("Could not load scores, scores start from zero", e);
+        }
+    }
+
+    private List<ScoreRecord> collectTotals() {
+        List<ScoreRecord> totals = new ArrayList<>();
+        guildLeaderboards.forEach((guildId, leaderboard) -> leaderboard.forEach((userId, userName, points) ->
+                totals.add(new ScoreRecord(guildId, userId, userName, points))));
+        return totals;
+    }
+
+    /**
+     * @param channel the channel the points were won in, decides the guild they count for
+     */
+    public void addPoints(MessageChannel channel, User user, long points) {
+        long guildId = ShardAssignment.guildIdOf(channel);
+        addToLeaderboards(guildId, user.getIdLong(), user.getName(), points);
+        PendingPoints pending = pendingPoints.computeIfAbsent(new ScoreKey(guildId, user.getIdLong()), key -> new PendingPoints());
+        pending.userName = user.getName();
+        pending.points.addAndGet(points);
+    }
+
+    private void addToLeaderboards(long guildId, long userId, String userName, long points) {
+        guildLeaderboards.computeIfAbsent(guildId, id -> new Leaderboard(LEADERBOARD_SIZE)).add(userId, userName, points);
+        globalLeaderboard.add(userId, userName, points);
+    }
+
+    /**
+     * Appends the points gained since the last flush to the journal
+     */
+    private void flush() {
+        List<ScoreRecord> gainedPoints = new ArrayList<>();
+        pendingPoints.forEach((key, pending) -> {
+            long points = pending.points.getAndSet(0);
+            if (points != 0) {
+                gainedPoints.add(new ScoreRecord(key.guildId, key.userId, pending.userName, points));
+            }
+        });
+        try {
+            scoreStore.append(gainedPoints);
+        } catch (IOException e) {
+            logger.error("Could not write scores, retrying with the next flush", e);
+            for (ScoreRecord record : gainedPoints) {
+                pendingPoints.get(new ScoreKey(record.getGuildId(), record.getUserId())).points.addAndGet(record.getPoints());
+            }
+        }
+    }
+
+    /**
+     * A user wants to know their points. Let's tell them the points in this guild and overall.
+     * @param message the message containing the !score command
+     */
+    public void scoreCommandCalled(Message message) {
+        User author = message.getAuthor();
+        long globalPoints = globalLeaderboard.getPoints(author.getIdLong());
+        long guildId = ShardAssignment.guildIdOf(message.getChannel());
+        if (guildId == NO_GUILD) {
+            message.getChannel().sendMessage(String.format("%s, you have %d points.", author.getName(), globalPoints)).queue();
+            return;
+        }
+        Leaderboard guildLeaderboard = guildLeaderboards.get(guildId);
+        long guildPoints = guildLeaderboard == null ? 0 : guildLeaderboard.getPoints(author.getIdLong());
+        message.getChannel().sendMessage(String.format("%s, you have %d points on this server and %d points overall.", author.getName(), guildPoints, globalPoints)).queue();
+    }
+
+    /**
+     * Somebody wants to see who is leading. Shows the leaderboard of the guild, or the global one if asked for with "!leaderboard global".
+     * @param arguments the text after the command
+     */
+    public void leaderboardCommandCalled(Message message, String arguments) {
+        long guildId = ShardAssignment.guildIdOf(message.getChannel());
+        boolean global = guildId == NO_GUILD || arguments.trim().equalsIgnoreCase("global");
+        Leaderboard leaderboard = global ? globalLeaderboard : guildLeaderboards.get(guildId);
+        List<ScoreEntry> top = leaderboard == null ? List.of() : leaderboard.getTop();
+        if (top.isEmpty()) {
+            message.getChannel().sendMessage("Nobody has any points yet. Answer a question with !question to be the first!").queue();
+            return;
+        }
+        StringBuilder text = new StringBuilder(global ? "Leaderboard of all servers:\n" : "Leaderboard of this server:\n");
+        for (int i = 0; i < top.size(); i++) {
+            ScoreEntry entry = top.get(i);
+            text.append(i + 1).append(". ").append(entry.getUserName()).append(": ").append(entry.getPoints()).append(" points\n");
+        }
+        message.getChannel().sendMessage(text.toString()).queue();
+    }
+
+    private static final class ScoreKey {
+        private final long guildId;
+        private final long userId;
+
+        private ScoreKey(long guildId, long userId) {
+            this.guildId = guildId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ScoreKey)) {
+                return false;
+            }
+            ScoreKey key = (ScoreKey) other;
+            return guildId == key.guildId && userId == key.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(guildId * 31 + userId);
+        }
+    }
+
+    private static final class PendingPoints {
+        private final AtomicLong points = new AtomicLong();
+        private volatile String userName;
+    }
+}
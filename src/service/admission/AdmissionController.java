@@ -0,0 +1,153 @@
+package service.admission;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import service.PlayQuestionService;
+import service.QuestionCreationService;
+import service.command.CommandDispatcher;
+import service.messaging.OutboundMessageService;
+import service.metrics.Metrics;
+import service.state.ShardAssignment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a message is handled at all, before it takes up a place in a channel lane.
+ * Every command is limited per user, per channel and per guild, so a single user or a busy channel cannot keep the bot busy for everybody else.
+ * <p>
+ * Limits are read from properties like bot.admission.user.answer=3/5 (3 !answer per 5 seconds per user). The command is given without the "!",
+ * messages that are no command count as "other". Commands without a limit of their own use bot.admission.&lt;scope&gt;.default,
+ * "other" is only limited per user by default.
+ * Answers typed as text during a game count as "answer" like !answer. The steps of a question creation are not limited,
+ * the creation was admitted as !createQuestion and the wizard answers every step just once.
+ * With bot.admission.overLimit=NOTIFY (the default) a user over the limit of a command is told once how long to wait, with DROP nothing is sent.
+ */
+public class AdmissionController {
+    private static final String OTHER = "other";
+    private static final String ANSWER = "answer";
+    private static final OverLimitAction OVER_LIMIT_ACTION = OverLimitAction.valueOf(System.getProperty("bot.admission.overLimit", OverLimitAction.NOTIFY.name()));
+    /**
+     * How many users, channels and guilds each can be limited at the same time
+     */
+    private static final int TABLE_SIZE = Integer.getInteger("bot.admission.tableSize", 1 << 16);
+    private static final Map<AdmissionScope, String> DEFAULT_LIMITS = Map.of(
+            AdmissionScope.USER, "5/10",
+            AdmissionScope.CHANNEL, "20/10",
+            AdmissionScope.GUILD, "100/10"
+    );
+
+    private static final AdmissionController instance = new AdmissionController();
+
+    public static AdmissionController getInstance() {
+        return instance;
+    }
+
+    private final GcraTable[] tables = new GcraTable[AdmissionScope.values().length];
+    /**
+     * Remembers who was told about being over the limit, so it is only told once per wait
+     */
+    private final GcraTable notices = new GcraTable(TABLE_SIZE);
+    private final Map<String, CommandLimits> commandLimits = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCommandNumber = new AtomicInteger();
+    private final LongAdder rejectedMessages = new LongAdder();
+    private final long clockStart = System.nanoTime();
+
+    private AdmissionController() {
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new GcraTable(TABLE_SIZE);
+        }
+        Metrics.getInstance().registerGauge("bot_admission_rejected_messages", "Messages ignored because their sender, channel or guild was over the limit", rejectedMessages::sum);
+        Metrics.getInstance().registerGauge("bot_admission_overflows", "Messages let through because the rate limit tables were full", this::getOverflows);
+    }
+
+    /**
+     * Counts the message against the limits of its user, channel and guild
+     * @return true if the message should be handled
+     */
+    public boolean admit(Message message) {
+        String content = message.getContentRaw();
+        String command = CommandDispatcher.getInstance().findCommandName(content);
+        MessageChannel channel = message.getChannel();
+        boolean typedAnswer = false;
+        if (command == null) {
+            if (QuestionCreationService.getInstance().isQuestionCreationRunning(channel, message.getAuthor())) {
+                return true;
+            }
+            typedAnswer = PlayQuestionService.getInstance().isTextAnswer(content, channel);
+        }
+        CommandLimits limits = commandLimits.computeIfAbsent(typedAnswer ? ANSWER : command == null ? OTHER : command.substring(1), this::readLimits);
+        long now = now();
+        long guildId = ShardAssignment.guildIdOf(channel);
+        long waitMillis = acquire(AdmissionScope.USER, limits, message.getAuthor().getIdLong(), now);
+        if (waitMillis == 0) {
+            waitMillis = acquire(AdmissionScope.CHANNEL, limits, channel.getIdLong(), now);
+        }
+        if (waitMillis == 0 && guildId != 0) {
+            waitMillis = acquire(AdmissionScope.GUILD, limits, guildId, now);
+        }
+        if (waitMillis == 0) {
+            return true;
+        }
+        rejectedMessages.increment();
+        // ordinary chat is dropped without a notice
+        if (OVER_LIMIT_ACTION == OverLimitAction.NOTIFY && (command != null || typedAnswer)
+                && notices.tryAcquire(message.getAuthor().getIdLong(), waitMillis, 0, now) == 0) {
+            long waitSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+            OutboundMessageService.getInstance().queueFeedback(channel, message.getAuthor(),
+                    String.format("you are %s too often, please wait %d seconds.", typedAnswer ? "answering" : "using " + command, waitSeconds));
+        }
+        return false;
+    }
+
+    private long acquire(AdmissionScope scope, CommandLimits limits, long id, long now) {
+        RateLimit limit = limits.limits[scope.ordinal()];
+        if (limit.isUnlimited()) {
+            return 0;
+        }
+        // every command has its own limit, so the id is mixed with the number of the command
+        long key = id * 0x9E3779B97F4A7C15L + limits.number;
+        return tables[scope.ordinal()].tryAcquire(key, limit.getEmissionIntervalMillis(), limit.getToleranceMillis(), now);
+    }
+
+    private CommandLimits readLimits(String command) {
+        RateLimit[] limits = new RateLimit[AdmissionScope.values().length];
+        for (AdmissionScope scope : AdmissionScope.values()) {
+            String prefix = "bot.admission." + scope.getPropertyName() + ".";
+            // ordinary chat is only limited per user unless configured otherwise, busy channels must not block question creations
+            String defaultLimit = command.equals(OTHER) && scope != AdmissionScope.USER
+                    ? "off"
+                    : System.getProperty(prefix + "default", DEFAULT_LIMITS.get(scope));
+            limits[scope.ordinal()] = RateLimit.parse(System.getProperty(prefix + command, defaultLimit));
+        }
+        return new CommandLimits(nextCommandNumber.getAndIncrement(), limits);
+    }
+
+    /**
+     * @return milliseconds since the controller was created, starting at 1 so no time is 0
+     */
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - clockStart) + 1;
+    }
+
+    private long getOverflows() {
+        long overflows = notices.getOverflows();
+        for (GcraTable table : tables) {
+            overflows += table.getOverflows();
+        }
+        return overflows;
+    }
+
+    private static final class CommandLimits {
+        private final int number;
+        private final RateLimit[] limits;
+
+        private CommandLimits(int number, RateLimit[] limits) {
+            this.number = number;
+            this.limits = limits;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package service.admission;
+
+/**
+ * What a rate limit counts the messages of
+ */
+public enum AdmissionScope {
+    USER("user"),
+    CHANNEL("channel"),
+    GUILD("guild");
+
+    private final String propertyName;
+
+    AdmissionScope(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * @return the part of the property names configuring limits of this scope, e.g. user in bot.admission.user.answer
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+}
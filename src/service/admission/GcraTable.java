@@ -0,0 +1,116 @@
+package service.admission;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits many keys with the generic cell rate algorithm, which needs a single number per key: the theoretical arrival time (TAT),
+ * the time at which the key would be back at its steady rate. A message is allowed if the TAT is at most the tolerance ahead of now,
+ * and then moves the TAT one emission interval further.
+ * <p>
+ * Every key takes a single long in an open addressing table: 24 bits of its hash to recognize it and the lower 40 bits of its TAT in milliseconds.
+ * Times are only compared by their difference, so they may wrap around the 40 bits, about every 35 years.
+ * Entries are updated with compare and set, so the table needs no locks. An entry whose TAT has passed carries no information anymore,
+ * the key has its full burst again, so it may be taken over by another key. That way the table never needs to be cleaned up.
+ * <p>
+ * Only the 24 bits of a key are stored, so two keys cannot be told apart if they have the same bits and one sits in the places probed for the other:
+ * they share a limit. The 8 places probed for a key hold at most 8 other keys, each with the same bits with a chance of 1 in 2^24 - 1,
+ * so at most about one key in two million shares its limit, fewer the emptier the table is. Sharing only makes the limit stricter for them.
+ * If all places near a key are taken by keys that are still limited, the message is let through and counted as an overflow.
+ */
+public class GcraTable {
+    private static final int MAXIMUM_PROBES = 8;
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int FINGERPRINT_BITS = Long.SIZE - TIME_BITS;
+
+    private final AtomicLongArray entries;
+    private final int mask;
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * @param capacity how many keys can be limited at the same time, rounded up to a power of two
+     */
+    public GcraTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(MAXIMUM_PROBES, capacity) - 1) << 1;
+        this.entries = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param key the key, e.g. a user id mixed with the command
+     * @param emissionIntervalMillis the time between two messages at the steady rate, at least 1
+     * @param toleranceMillis how far ahead of the steady rate the key may get
+     * @param now the current time in milliseconds, must never go back. Only its lower 40 bits are used.
+     * @return 0 if the message is allowed, otherwise the milliseconds until it would be
+     */
+    public long tryAcquire(long key, long emissionIntervalMillis, long toleranceMillis, long now) {
+        long hash = mix(key);
+        // 0 marks a place that was never used
+        long fingerprint = Math.max(1, hash >>> TIME_BITS);
+        int start = (int) hash & mask;
+        while (true) {
+            int found = -1;
+            long foundEntry = 0;
+            int free = -1;
+            long freeEntry = 0;
+            for (int probe = 0; probe < MAXIMUM_PROBES; probe++) {
+                int index = (start + probe) & mask;
+                long entry = entries.get(index);
+                if (entry != 0 && entry >>> TIME_BITS == fingerprint) {
+                    found = index;
+                    foundEntry = entry;
+                    break;
+                }
+                if (free < 0 && (entry == 0 || millisAhead(entry, now) <= 0)) {
+                    free = index;
+                    freeEntry = entry;
+                }
+            }
+            if (found >= 0) {
+                long ahead = Math.max(millisAhead(foundEntry, now), 0);
+                if (ahead > toleranceMillis) {
+                    return ahead - toleranceMillis;
+                }
+                if (entries.compareAndSet(found, foundEntry, pack(fingerprint, now + ahead + emissionIntervalMillis))) {
+                    return 0;
+                }
+            } else if (free >= 0) {
+                if (entries.compareAndSet(free, freeEntry, pack(fingerprint, now + emissionIntervalMillis))) {
+                    return 0;
+                }
+            } else {
+                overflows.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return how often a message was let through because there was no room for its key
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    /**
+     * @return how far the TAT of the entry is ahead of now, negative if it has passed. The 40 bit difference is sign extended,
+     * which is right as long as the TAT is less than 2^39 milliseconds, about 17 years, away from now.
+     */
+    private static long millisAhead(long entry, long now) {
+        return (entry - now) << FINGERPRINT_BITS >> FINGERPRINT_BITS;
+    }
+
+    private static long pack(long fingerprint, long theoreticalArrival) {
+        return fingerprint << TIME_BITS | (theoreticalArrival & TIME_MASK);
+    }
+
+    /**
+     * Spreads the bits of the key, ids that differ only in a few bits end up far apart
+     */
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
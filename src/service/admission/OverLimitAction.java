@@ -0,0 +1,15 @@
+package service.admission;
+
+/**
+ * What happens to a message sent by somebody who is over the limit
+ */
+public enum OverLimitAction {
+    /**
+     * The message is ignored
+     */
+    DROP,
+    /**
+     * The message is ignored, but the user is told once how long to wait
+     */
+    NOTIFY
+}
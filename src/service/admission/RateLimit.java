@@ -0,0 +1,67 @@
+package service.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How many messages may be sent within a period. They may come in a burst, after that one more is allowed every period / limit.
+ */
+public class RateLimit {
+    /**
+     * Lets every message through
+     */
+    public static final RateLimit UNLIMITED = new RateLimit(0, 0);
+
+    private final int limit;
+    private final long periodMillis;
+
+    public RateLimit(int limit, long periodMillis) {
+        if (limit < 0 || periodMillis < 0 || (limit > 0 && periodMillis < limit)) {
+            throw new IllegalArgumentException(String.format("Invalid rate limit of %d messages per %d ms", limit, periodMillis));
+        }
+        this.limit = limit;
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * @param text "5/10" for 5 messages per 10 seconds, "off" for no limit
+     */
+    public static RateLimit parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.equalsIgnoreCase("off")) {
+            return UNLIMITED;
+        }
+        int slash = trimmed.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Rate limit must look like 5/10 (5 messages per 10 seconds) or off, got " + text);
+        }
+        int limit = Integer.parseInt(trimmed.substring(0, slash).trim());
+        long periodSeconds = Long.parseLong(trimmed.substring(slash + 1).trim());
+        if (limit == 0) {
+            throw new IllegalArgumentException("Rate limit must allow at least one message, use off for no limit, got " + text);
+        }
+        return new RateLimit(limit, TimeUnit.SECONDS.toMillis(periodSeconds));
+    }
+
+    public boolean isUnlimited() {
+        return limit == 0;
+    }
+
+    /**
+     * @return the time between two messages once the burst is used up
+     */
+    public long getEmissionIntervalMillis() {
+        return periodMillis / limit;
+    }
+
+    /**
+     * @return how far ahead of the steady rate messages may get, this is what allows a burst
+     */
+    public long getToleranceMillis() {
+        return getEmissionIntervalMillis() * (limit - 1);
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "off" : limit + "/" + TimeUnit.MILLISECONDS.toSeconds(periodMillis);
+    }
+}
@@ -0,0 +1,15 @@
+package service.banks;
+
+/**
+ * Which channels share their questions
+ */
+public enum BankScope {
+    /**
+     * All channels play the same questions
+     */
+    GLOBAL,
+    /**
+     * Every guild plays the questions created in it, private channels play the global questions
+     */
+    GUILD
+}
@@ -0,0 +1,183 @@
+package service.banks;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dataObjects.Question;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.storage.AppendOnlyQuestionList;
+import service.storage.FsyncPolicy;
+import service.storage.QuestionBankView;
+import service.storage.QuestionJournal;
+import service.storage.StreamingQuestionReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The questions of a single guild, kept in a file of their own: a json snapshot plus a journal of the questions saved after it,
+ * just like the global storage.json. The bank is read completely when it is opened and written back as a new snapshot when it is flushed.
+ * <p>
+ * Readers get immutable versions of the bank, see {@link #getQuestions()}. Once closed, no questions can be added anymore.
+ */
+public class GuildQuestionBank implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GuildQuestionBank.class);
+
+    private final long guildId;
+    private final Path snapshotPath;
+    private final Path temporarySnapshotPath;
+    private final Path journalPath;
+    private final Path compactingJournalPath;
+    private final Gson gson;
+    private final AppendOnlyQuestionList questions = new AppendOnlyQuestionList();
+    private volatile List<Question> currentVersion = List.of();
+    /**
+     * Null once the bank is closed
+     */
+    private QuestionJournal journal;
+    private int questionsInSnapshot;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    private GuildQuestionBank(Path directory, long guildId, Gson gson) {
+        this.guildId = guildId;
+        this.snapshotPath = directory.resolve(guildId + ".json");
+        this.temporarySnapshotPath = directory.resolve(guildId + ".json.tmp");
+        this.journalPath = directory.resolve(guildId + ".json.journal");
+        this.compactingJournalPath = directory.resolve(guildId + ".json.journal.compacting");
+        this.gson = gson;
+    }
+
+    /**
+     * Reads the bank of the guild, a guild without a file yet gets an empty bank
+     */
+    public static GuildQuestionBank open(Path directory, long guildId, Gson gson, FsyncPolicy fsyncPolicy) throws IOException {
+        GuildQuestionBank bank = new GuildQuestionBank(directory, guildId, gson);
+        bank.load(fsyncPolicy);
+        return bank;
+    }
+
+    private synchronized void load(FsyncPolicy fsyncPolicy) throws IOException {
+        if (Files.exists(snapshotPath)) {
+            StreamingQuestionReader.read(snapshotPath, gson, questions::add, (read, bytesRead, totalBytes) -> { });
+        }
+        questionsInSnapshot = questions.size();
+        for (Path path : List.of(compactingJournalPath, journalPath)) {
+            QuestionJournal.replay(path, gson, record -> {
+                // records already contained in the snapshot are skipped, a crash during a flush may leave them behind
+                if (record.getIndex() >= questions.size()) {
+                    questions.add(record.getQuestion());
+                }
+            });
+        }
+        journal = new QuestionJournal(journalPath, fsyncPolicy, gson);
+        publishVersion();
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    /**
+     * @return the current version of the questions, it never changes
+     */
+    public List<Question> getQuestions() {
+        lastAccess = System.currentTimeMillis();
+        return currentVersion;
+    }
+
+    /**
+     * @return when the bank was last read or added to, in milliseconds since the epoch
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * @return the number of the question, -1 if the bank is already closed and the question was not added
+     * @throws IOException if the question could not be written to the journal, it is still available until the bank is evicted
+     */
+    public synchronized int addQuestion(Question question) throws IOException {
+        if (journal == null) {
+            return -1;
+        }
+        lastAccess = System.currentTimeMillis();
+        int index = questions.size();
+        questions.add(question);
+        publishVersion();
+        journal.append(index, question);
+        return index;
+    }
+
+    /**
+     * Adds several questions with a single journal write, e.g. from an import
+     * @return the number of the first question, -1 if the bank is already closed and the questions were not added
+     * @throws IOException if the questions could not be written to the journal, they are still available until the bank is evicted
+     */
+    public synchronized int addQuestions(List<Question> questionsToAdd) throws IOException {
+        if (journal == null) {
+            return -1;
+        }
+        lastAccess = System.currentTimeMillis();
+        int firstIndex = questions.size();
+        for (Question question : questionsToAdd) {
+            questions.add(question);
+        }
+        publishVersion();
+        journal.appendAll(firstIndex, questionsToAdd);
+        return firstIndex;
+    }
+
+    /**
+     * Writes all questions to a new snapshot and empties the journal, if questions were added since the last flush
+     */
+    public synchronized void flush() throws IOException {
+        if (journal == null || questions.size() == questionsInSnapshot) {
+            return;
+        }
+        if (!Files.exists(compactingJournalPath)) {
+            journal.rotateTo(compactingJournalPath);
+        }
+        List<Question> questionsToStore = currentVersion;
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(temporarySnapshotPath, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (Question question : questionsToStore) {
+                gson.toJson(question, Question.class, writer);
+            }
+            writer.endArray();
+        }
+        try (FileChannel channel = FileChannel.open(temporarySnapshotPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporarySnapshotPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(compactingJournalPath);
+        questionsInSnapshot = questionsToStore.size();
+        logger.debug("Flushed {} questions of guild {}", questionsInSnapshot, guildId);
+    }
+
+    /**
+     * Flushes the bank and stops accepting questions
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private void publishVersion() {
+        currentVersion = new QuestionBankView(questions, questions.size());
+    }
+}
@@ -0,0 +1,167 @@
+package service.banks;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.storage.FsyncPolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the question banks of the guilds that were active recently in memory.
+ * A bank is read from its file when it is first needed, and flushed and closed again once it was idle for longer than the time to live
+ * or when more banks are loaded than allowed, the least recently used first.
+ * <p>
+ * Loading happens outside of the map, so a guild whose bank is being read never blocks the other guilds.
+ * While a bank is closed its entry stays in the map, a bank that is needed again is only read once its files are complete.
+ */
+public class GuildQuestionBankCache {
+    private static final Logger logger = LoggerFactory.getLogger(GuildQuestionBankCache.class);
+
+    private final Path directory;
+    private final Gson gson;
+    private final FsyncPolicy fsyncPolicy;
+    private final long timeToLiveMillis;
+    private final int maximumBanks;
+    /**
+     * The banks loaded or being loaded. A bank being closed has a future here that completes with null once it is closed.
+     */
+    private final Map<Long, CompletableFuture<GuildQuestionBank>> banks = new ConcurrentHashMap<>();
+
+    /**
+     * @param timeToLiveMillis how long a bank may be idle before it is evicted
+     * @param maximumBanks how many banks may be loaded at the same time
+     */
+    public GuildQuestionBankCache(Path directory, Gson gson, FsyncPolicy fsyncPolicy, long timeToLiveMillis, int maximumBanks) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.gson = gson;
+        this.fsyncPolicy = fsyncPolicy;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maximumBanks = maximumBanks;
+        ScheduledExecutorService evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "guild-bank-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepInterval = Math.max(1000, Math.min(timeToLiveMillis / 2, TimeUnit.MINUTES.toMillis(1)));
+        evictionExecutor.scheduleWithFixedDelay(this::evictBanks, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeAll, "guild-bank-shutdown"));
+    }
+
+    /**
+     * @return the bank of the guild, loading it if it is not in memory yet
+     * @throws UncheckedIOException if the bank could not be read, the next call tries again
+     */
+    public GuildQuestionBank get(long guildId) {
+        while (true) {
+            CompletableFuture<GuildQuestionBank> loading = new CompletableFuture<>();
+            CompletableFuture<GuildQuestionBank> bank = banks.putIfAbsent(guildId, loading);
+            if (bank == null) {
+                bank = loading;
+                load(guildId, loading);
+            }
+            GuildQuestionBank loadedBank = await(guildId, bank);
+            if (loadedBank != null) {
+                return loadedBank;
+            }
+            // the bank was being closed, now that it is flushed it is read again
+        }
+    }
+
+    private static GuildQuestionBank await(long guildId, CompletableFuture<GuildQuestionBank> bank) {
+        try {
+            return bank.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the question bank of guild " + guildId, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException
+                    ? (UncheckedIOException) e.getCause()
+                    : new IllegalStateException("Could not load the question bank of guild " + guildId, e.getCause());
+        }
+    }
+
+    private void load(long guildId, CompletableFuture<GuildQuestionBank> loading) {
+        try {
+            long start = System.currentTimeMillis();
+            GuildQuestionBank bank = GuildQuestionBank.open(directory, guildId, gson, fsyncPolicy);
+            logger.debug("Loaded {} questions of guild {} in {} ms", bank.getQuestions().size(), guildId, System.currentTimeMillis() - start);
+            loading.complete(bank);
+        } catch (IOException | RuntimeException e) {
+            banks.remove(guildId, loading);
+            loading.completeExceptionally(e instanceof IOException ? new UncheckedIOException((IOException) e) : e);
+            return;
+        }
+        if (banks.size() > maximumBanks) {
+            evictBanks();
+        }
+    }
+
+    /**
+     * @return how many banks are in memory right now
+     */
+    public int size() {
+        return banks.size();
+    }
+
+    private void evictBanks() {
+        long now = System.currentTimeMillis();
+        List<GuildQuestionBank> loaded = new ArrayList<>();
+        for (CompletableFuture<GuildQuestionBank> bank : banks.values()) {
+            GuildQuestionBank loadedBank = bank.getNow(null);
+            if (loadedBank == null) {
+                continue;
+            }
+            if (now - loadedBank.getLastAccess() > timeToLiveMillis) {
+                evict(loadedBank);
+            } else {
+                loaded.add(loadedBank);
+            }
+        }
+        int tooMany = banks.size() - maximumBanks;
+        if (tooMany > 0) {
+            loaded.sort(Comparator.comparingLong(GuildQuestionBank::getLastAccess));
+            for (int i = 0; i < tooMany && i < loaded.size(); i++) {
+                evict(loaded.get(i));
+            }
+        }
+    }
+
+    private void evict(GuildQuestionBank bank) {
+        CompletableFuture<GuildQuestionBank> closing = new CompletableFuture<>();
+        // replaced first, so nobody gets the bank anymore while it is closed; adds that still reach it are refused and retried by the caller
+        if (banks.computeIfPresent(bank.getGuildId(), (guildId, future) -> future.getNow(null) == bank ? closing : future) != closing) {
+            return;
+        }
+        try {
+            bank.close();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not flush the question bank of guild {}, questions added since the last flush are only in its journal", bank.getGuildId(), e);
+        } finally {
+            banks.remove(bank.getGuildId(), closing);
+            closing.complete(null);
+        }
+    }
+
+    private void closeAll() {
+        for (CompletableFuture<GuildQuestionBank> bank : banks.values()) {
+            GuildQuestionBank loadedBank = bank.getNow(null);
+            if (loadedBank != null) {
+                evict(loadedBank);
+            }
+        }
+    }
+}
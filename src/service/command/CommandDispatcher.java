@@ -0,0 +1,158 @@
+package service.command;
+
+import net.dv8tion.jda.api.entities.Message;
+import service.metrics.CommandMetrics;
+import service.metrics.Metrics;
+
+import java.util.Arrays;
+
+/**
+ * Routes messages to the handler of the command they start with.
+ * Commands are kept in a prefix tree, so finding the command of a message is a single pass over its first characters no matter how many commands there are.
+ * A command only matches if it is followed by the end of the message, or by a space for commands taking arguments.
+ * The time it takes to handle each command is recorded in the {@link Metrics}, messages that are no command are recorded as "other".
+ */
+public class CommandDispatcher {
+    private static final CommandDispatcher instance = new CommandDispatcher();
+
+    public static CommandDispatcher getInstance() {
+        return instance;
+    }
+
+    private final Node root = new Node('\0');
+    private volatile CommandHandler fallbackHandler = (message, content, argumentsStart) -> { };
+    private final CommandMetrics fallbackMetrics = Metrics.getInstance().command("other");
+
+    private CommandDispatcher() {
+
+    }
+
+    /**
+     * @param command the command, the message has to be exactly this
+     * @param handler called for every message containing just the command
+     */
+    public void register(String command, CommandHandler handler) {
+        register(command, false, handler);
+    }
+
+    /**
+     * @param command the command, the message has to be exactly this or start with it followed by a space
+     * @param handler called for every message starting with the command
+     */
+    public void registerWithArguments(String command, CommandHandler handler) {
+        register(command, true, handler);
+    }
+
+    private synchronized void register(String command, boolean takesArguments, CommandHandler handler) {
+        Node node = root;
+        for (int i = 0; i < command.length(); i++) {
+            node = node.getOrAddChild(command.charAt(i));
+        }
+        node.registration = new Registration(command, takesArguments, handler);
+    }
+
+    /**
+     * @param handler called for every message that is not a command
+     */
+    public void setFallbackHandler(CommandHandler handler) {
+        this.fallbackHandler = handler;
+    }
+
+    /**
+     * Calls the handler of the command the message starts with, or the fallback handler if it is no command
+     */
+    public void dispatch(Message message) {
+        String content = message.getContentRaw();
+        Registration registration = findCommand(content);
+        long start = System.nanoTime();
+        if (registration == null) {
+            try {
+                fallbackHandler.handle(message, content, 0);
+            } finally {
+                fallbackMetrics.record(System.nanoTime() - start);
+            }
+            return;
+        }
+        try {
+            registration.handler.handle(message, content, registration.command.length());
+        } finally {
+            registration.metrics.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the command the message would be dispatched to or null if it is no command
+     */
+    public String findCommandName(String content) {
+        Registration registration = findCommand(content);
+        return registration == null ? null : registration.command;
+    }
+
+    /**
+     * @return the longest command the content starts with or null if it starts with none
+     */
+    private Registration findCommand(String content) {
+        Registration found = null;
+        Node node = root;
+        int length = content.length();
+        for (int i = 0; i < length && node != null; i++) {
+            node = node.getChild(content.charAt(i));
+            if (node == null || node.registration == null) {
+                continue;
+            }
+            Registration registration = node.registration;
+            int end = i + 1;
+            if (end == length || (registration.takesArguments && content.charAt(end) == ' ')) {
+                found = registration;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A node of the prefix tree. Children are only ever added by copying the array, so reading needs no locking.
+     */
+    private static final class Node {
+        private final char character;
+        private volatile Node[] children = new Node[0];
+        private volatile Registration registration;
+
+        private Node(char character) {
+            this.character = character;
+        }
+
+        private Node getChild(char character) {
+            for (Node child : children) {
+                if (child.character == character) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(char character) {
+            Node child = getChild(character);
+            if (child == null) {
+                child = new Node(character);
+                Node[] extended = Arrays.copyOf(children, children.length + 1);
+                extended[extended.length - 1] = child;
+                children = extended;
+            }
+            return child;
+        }
+    }
+
+    private static final class Registration {
+        private final String command;
+        private final boolean takesArguments;
+        private final CommandHandler handler;
+        private final CommandMetrics metrics;
+
+        private Registration(String command, boolean takesArguments, CommandHandler handler) {
+            this.command = command;
+            this.takesArguments = takesArguments;
+            this.handler = handler;
+            this.metrics = Metrics.getInstance().command(command);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package service.command;
+
+import net.dv8tion.jda.api.entities.Message;
+
+/**
+ * Reacts to a command sent by a user
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    /**
+     * @param message the message containing the command
+     * @param content the raw content of the message
+     * @param argumentsStart the position in the content right after the command, arguments start here
+     */
+    void handle(Message message, String content, int argumentsStart);
+}
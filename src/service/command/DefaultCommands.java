@@ -0,0 +1,60 @@
+package service.command;
+
+import service.PlayQuestionService;
+import service.QuestionCreationService;
+import service.QuestionDeduplicationService;
+import service.QuestionImportService;
+import service.QuestionSearchService;
+import service.ScoreService;
+
+/**
+ * The commands the bot understands. New commands are added here or registered with the CommandDispatcher directly.
+ */
+public class DefaultCommands {
+    private DefaultCommands() {
+
+    }
+
+    public static void registerAll(CommandDispatcher dispatcher) {
+        dispatcher.register("!abort", (message, content, argumentsStart) -> {
+            QuestionCreationService
+                    .getInstance()
+                    .abort(message);
+            PlayQuestionService
+                    .getInstance()
+                    .abort(message.getChannel());
+        });
+        dispatcher.register("!createQuestion", (message, content, argumentsStart) -> QuestionCreationService
+                .getInstance()
+                .createQuestion(message));
+        dispatcher.register("!question", (message, content, argumentsStart) -> PlayQuestionService
+                .getInstance()
+                .questionCommandCalled(message.getChannel()));
+        dispatcher.registerWithArguments("!answer", (message, content, argumentsStart) -> PlayQuestionService
+                .getInstance()
+                .answerCommandCalled(content, message.getChannel(), message.getAuthor()));
+        // looked up right away so the indexes and scores are loaded while the bot starts rather than when first needed
+        QuestionSearchService questionSearchService = QuestionSearchService.getInstance();
+        QuestionDeduplicationService.getInstance();
+        ScoreService scoreService = ScoreService.getInstance();
+        dispatcher.registerWithArguments("!search", (message, content, argumentsStart) -> questionSearchService
+                .searchCommandCalled(content.substring(argumentsStart), message.getChannel()));
+        dispatcher.register("!score", (message, content, argumentsStart) -> scoreService.scoreCommandCalled(message));
+        dispatcher.registerWithArguments("!leaderboard", (message, content, argumentsStart) -> scoreService
+                .leaderboardCommandCalled(message, content.substring(argumentsStart)));
+        dispatcher.registerWithArguments("!import", (message, content, argumentsStart) -> QuestionImportService
+                .getInstance()
+                .importCommandCalled(message));
+        dispatcher.setFallbackHandler((message, content, argumentsStart) -> {
+            if (QuestionCreationService.getInstance().isQuestionCreationRunning(message.getChannel(), message.getAuthor())) {
+                QuestionCreationService
+                        .getInstance()
+                        .infoAboutQuestionInCreation(message);
+            } else {
+                PlayQuestionService
+                        .getInstance()
+                        .textAnswered(content, message.getChannel(), message.getAuthor());
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads the settings of the bot from a properties file and the environment. All settings end up as system properties,
+ * where the services read them from, so this has to run before the first service is used.
+ * <p>
+ * A setting given with -D wins over the environment, which wins over the file. The file is bot.properties in the working directory,
+ * another file can be chosen with -Dbot.config or BOT_CONFIG. It is optional, without it only the environment is read.
+ * <p>
+ * Environment variables starting with BOT_ are settings written in upper case with underscores instead of dots, e.g. BOT_SHARD_ID for bot.shard.id.
+ * Settings whose name has upper case letters, like bot.snapshots.intervalSeconds, can only be set from the environment if they are
+ * also in the file, as BOT_SNAPSHOTS_INTERVALSECONDS. DISCORD_TOKEN is read as bot.token.
+ */
+public class Configuration {
+    private static final Logger logger = LoggerFactory.getLogger(Configuration.class);
+    private static final String DEFAULT_FILE = "bot.properties";
+    private static final String ENVIRONMENT_PREFIX = "BOT_";
+    private static final Map<String, String> ENVIRONMENT_ALIASES = Map.of("DISCORD_TOKEN", "bot.token");
+
+    private static boolean loaded;
+
+    private Configuration() {
+
+    }
+
+    /**
+     * Reads the file and the environment into the system properties, only the first call does anything
+     */
+    public static synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        Properties file = readFile();
+        // the file tells how settings with upper case letters are spelled
+        Map<String, String> spellings = new HashMap<>();
+        for (String key : file.stringPropertyNames()) {
+            spellings.put(key.toLowerCase(Locale.ROOT), key);
+        }
+        int fromEnvironment = 0;
+        for (Map.Entry<String, String> variable : System.getenv().entrySet()) {
+            String key = toPropertyName(variable.getKey(), spellings);
+            if (key != null && setIfAbsent(key, variable.getValue())) {
+                fromEnvironment++;
+            }
+        }
+        int fromFile = 0;
+        for (String key : file.stringPropertyNames()) {
+            if (setIfAbsent(key, file.getProperty(key))) {
+                fromFile++;
+            }
+        }
+        logger.info("Read {} settings from the environment and {} from the configuration file", fromEnvironment, fromFile);
+    }
+
+    private static Properties readFile() {
+        Properties properties = new Properties();
+        String configuredFile = System.getProperty("bot.config", System.getenv("BOT_CONFIG"));
+        Path file = Path.of(configuredFile != null ? configuredFile : DEFAULT_FILE);
+        if (!Files.exists(file)) {
+            if (configuredFile != null) {
+                throw new IllegalStateException("The configuration file " + file + " does not exist");
+            }
+            return properties;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the configuration file " + file, e);
+        }
+        return properties;
+    }
+
+    /**
+     * @return the setting the environment variable stands for or null if it is no setting of the bot
+     */
+    private static String toPropertyName(String variable, Map<String, String> spellings) {
+        if (ENVIRONMENT_ALIASES.containsKey(variable)) {
+            return ENVIRONMENT_ALIASES.get(variable);
+        }
+        if (!variable.startsWith(ENVIRONMENT_PREFIX) || variable.equals("BOT_CONFIG")) {
+            return null;
+        }
+        String key = variable.toLowerCase(Locale.ROOT).replace('_', '.');
+        return spellings.getOrDefault(key, key);
+    }
+
+    private static boolean setIfAbsent(String key, String value) {
+        if (System.getProperty(key) != null) {
+            return false;
+        }
+        System.setProperty(key, value.trim());
+        return true;
+    }
+}
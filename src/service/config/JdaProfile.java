@@ -0,0 +1,31 @@
+package service.config;
+
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+
+/**
+ * How much of Discord the JDA client subscribes to and keeps in memory
+ */
+public enum JdaProfile {
+    /**
+     * Only messages of guilds and private channels are received. Members, presences and voice states are neither cached nor chunked,
+     * which is all the bot needs: it reads messages and answers in their channel.
+     */
+    LEAN {
+        @Override
+        public JDABuilder createBuilder(String token) {
+            return JDABuilder.createLight(token, GatewayIntent.GUILD_MESSAGES, GatewayIntent.DIRECT_MESSAGES);
+        }
+    },
+    /**
+     * JDA's defaults with every default intent and cache, kept to compare against the lean profile
+     */
+    DEFAULT {
+        @Override
+        public JDABuilder createBuilder(String token) {
+            return JDABuilder.createDefault(token);
+        }
+    };
+
+    public abstract JDABuilder createBuilder(String token);
+}
@@ -0,0 +1,83 @@
+package service.dedup;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Groups question numbers by a key using nothing but int arrays: an open addressing table holds the latest question of every key
+ * and each question links to the previous one with the same key. The keys themselves are not stored but looked up by question number,
+ * which keeps this at about nine bytes per question. Not thread safe.
+ */
+final class ChainedHashTable {
+    private final IntToLongFunction keyOfQuestion;
+    /**
+     * The latest question of a key plus one, 0 marks an empty slot
+     */
+    private int[] heads = new int[16];
+    /**
+     * The previous question with the same key plus one, 0 ends the chain
+     */
+    private int[] previous = new int[16];
+    private int keys;
+
+    /**
+     * @param keyOfQuestion gives the key of every question added before
+     */
+    ChainedHashTable(IntToLongFunction keyOfQuestion) {
+        this.keyOfQuestion = keyOfQuestion;
+    }
+
+    void add(int question, long key) {
+        if (question >= previous.length) {
+            previous = Arrays.copyOf(previous, Math.max(question + 1, previous.length * 2));
+        }
+        int slot = findSlot(heads, key);
+        if (heads[slot] == 0) {
+            keys++;
+            previous[question] = 0;
+        } else {
+            previous[question] = heads[slot];
+        }
+        heads[slot] = question + 1;
+        if (keys * 4L > heads.length * 3L) {
+            grow();
+        }
+    }
+
+    /**
+     * Calls the consumer with the questions added with the key, latest first
+     * @param limit the maximum number of questions passed to the consumer
+     */
+    void forEach(long key, int limit, IntConsumer consumer) {
+        int passed = 0;
+        for (int entry = heads[findSlot(heads, key)]; entry != 0 && passed < limit; entry = previous[entry - 1]) {
+            consumer.accept(entry - 1);
+            passed++;
+        }
+    }
+
+    private int findSlot(int[] table, long key) {
+        int mask = table.length - 1;
+        int slot = (int) spread(key) & mask;
+        while (table[slot] != 0 && keyOfQuestion.applyAsLong(table[slot] - 1) != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] grown = new int[heads.length * 2];
+        for (int head : heads) {
+            if (head != 0) {
+                grown[findSlot(grown, keyOfQuestion.applyAsLong(head - 1))] = head;
+            }
+        }
+        heads = grown;
+    }
+
+    private static long spread(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 32);
+    }
+}
@@ -0,0 +1,116 @@
+package service.dedup;
+
+import dataObjects.Question;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the stored questions a question duplicates without comparing it to all of them.
+ * Exact duplicates are looked up by content hash. Near duplicates are found by locality sensitive hashing:
+ * the MinHash signature is cut into bands and only questions agreeing on a whole band are compared.
+ * With 8 bands of 4 values, questions sharing half of their words are found with a probability of about 40%, those sharing 80% with over 96%.
+ * <p>
+ * Questions have to be added in the order of their numbers.
+ */
+public class DuplicateIndex {
+    /**
+     * At most this many questions sharing a band are compared, so a lookup stays fast even if thousands of questions look alike
+     */
+    private static final int MAXIMUM_CANDIDATES_PER_BAND = 256;
+
+    private long[] contentHashes = new long[16];
+    private byte[] signatures = new byte[16 * QuestionFingerprint.SIGNATURE_LENGTH];
+    private final ChainedHashTable exactDuplicates = new ChainedHashTable(question -> contentHashes[question]);
+    private final ChainedHashTable[] bands = new ChainedHashTable[QuestionFingerprint.BANDS];
+    private int questionCount;
+
+    public DuplicateIndex() {
+        for (int band = 0; band < bands.length; band++) {
+            int currentBand = band;
+            bands[band] = new ChainedHashTable(question ->
+                    QuestionFingerprint.bandKey(signatures, question * QuestionFingerprint.SIGNATURE_LENGTH, currentBand));
+        }
+    }
+
+    /**
+     * Fingerprints the first questions in parallel and adds them in order
+     * @param questions looks up a question by its number
+     * @param count the number of questions to add
+     */
+    public static DuplicateIndex build(IntFunction<Question> questions, int count) {
+        QuestionFingerprint[] fingerprints = IntStream.range(0, count)
+                .parallel()
+                .mapToObj(number -> QuestionFingerprint.of(questions.apply(number)))
+                .toArray(QuestionFingerprint[]::new);
+        DuplicateIndex index = new DuplicateIndex();
+        for (QuestionFingerprint fingerprint : fingerprints) {
+            index.add(fingerprint);
+        }
+        return index;
+    }
+
+    /**
+     * @param number the number of the question, must be the number of questions added so far
+     */
+    public synchronized void add(int number, Question question) {
+        if (number != questionCount) {
+            throw new IllegalArgumentException("Expected question " + questionCount + " but got " + number);
+        }
+        add(QuestionFingerprint.of(question));
+    }
+
+    private synchronized void add(QuestionFingerprint fingerprint) {
+        int number = questionCount;
+        if (number == contentHashes.length) {
+            contentHashes = Arrays.copyOf(contentHashes, number * 2);
+            signatures = Arrays.copyOf(signatures, number * 2 * QuestionFingerprint.SIGNATURE_LENGTH);
+        }
+        contentHashes[number] = fingerprint.getContentHash();
+        exactDuplicates.add(number, fingerprint.getContentHash());
+        byte[] signature = fingerprint.getSignature();
+        // questions without words have no signature and are only found as exact duplicates
+        if (signature != null) {
+            int offset = number * QuestionFingerprint.SIGNATURE_LENGTH;
+            System.arraycopy(signature, 0, signatures, offset, signature.length);
+            for (int band = 0; band < bands.length; band++) {
+                bands[band].add(number, QuestionFingerprint.bandKey(signatures, offset, band));
+            }
+        }
+        questionCount = number + 1;
+    }
+
+    public synchronized int getQuestionCount() {
+        return questionCount;
+    }
+
+    /**
+     * @param minimumSimilarity the estimated share of words a stored question must have in common with the question to count as a near duplicate
+     * @return an exact duplicate if there is one, otherwise the most similar near duplicate, null if there is neither
+     */
+    public synchronized DuplicateMatch findDuplicate(Question question, double minimumSimilarity) {
+        QuestionFingerprint fingerprint = QuestionFingerprint.of(question);
+        int[] exact = {-1};
+        exactDuplicates.forEach(fingerprint.getContentHash(), 1, candidate -> exact[0] = candidate);
+        if (exact[0] >= 0) {
+            return new DuplicateMatch(exact[0], 1, true);
+        }
+        byte[] signature = fingerprint.getSignature();
+        if (signature == null) {
+            return null;
+        }
+        int[] best = {-1};
+        double[] bestSimilarity = {minimumSimilarity};
+        for (int band = 0; band < bands.length; band++) {
+            bands[band].forEach(QuestionFingerprint.bandKey(signature, 0, band), MAXIMUM_CANDIDATES_PER_BAND, candidate -> {
+                double similarity = QuestionFingerprint.similarity(signature, 0, signatures, candidate * QuestionFingerprint.SIGNATURE_LENGTH);
+                if (similarity > bestSimilarity[0] || (similarity == bestSimilarity[0] && best[0] < 0)) {
+                    best[0] = candidate;
+                    bestSimilarity[0] = similarity;
+                }
+            });
+        }
+        return best[0] < 0 ? null : new DuplicateMatch(best[0], bestSimilarity[0], false);
+    }
+}
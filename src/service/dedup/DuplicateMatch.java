@@ -0,0 +1,37 @@
+package service.dedup;
+
+/**
+ * A stored question found to be a duplicate of another question
+ */
+public class DuplicateMatch {
+    private final int questionNumber;
+    private final double similarity;
+    private final boolean exact;
+
+    public DuplicateMatch(int questionNumber, double similarity, boolean exact) {
+        this.questionNumber = questionNumber;
+        this.similarity = similarity;
+        this.exact = exact;
+    }
+
+    /**
+     * @return the number of the stored question in the QuestionStorageService
+     */
+    public int getQuestionNumber() {
+        return questionNumber;
+    }
+
+    /**
+     * @return the estimated share of words both questions have in common, 1 for exact duplicates
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * @return true if both questions are the same apart from case, punctuation and the order of the answers
+     */
+    public boolean isExact() {
+        return exact;
+    }
+}
@@ -0,0 +1,19 @@
+package service.dedup;
+
+/**
+ * What happens when a question about to be saved is a duplicate of a stored one
+ */
+public enum DuplicatePolicy {
+    /**
+     * The question is saved without a word
+     */
+    ALLOW,
+    /**
+     * The question is saved and the creator is told about the stored question it resembles
+     */
+    WARN,
+    /**
+     * The question is not saved, the creator is told about the stored question it duplicates
+     */
+    REJECT
+}
@@ -0,0 +1,164 @@
+package service.dedup;
+
+import com.google.gson.Gson;
+import dataObjects.Question;
+import service.storage.StreamingQuestionReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Scans a whole question bank for groups of duplicates.
+ * Fingerprints are computed in parallel, then every band is sorted on its own in parallel so questions agreeing on it end up next to each other.
+ * Neighbours in these runs are compared and similar ones joined into clusters, so the scan never compares all pairs of questions.
+ */
+public class DuplicateScanner {
+    private DuplicateScanner() {
+
+    }
+
+    /**
+     * @param questions looks up a question by its number
+     * @param count the number of questions in the bank
+     * @param minimumSimilarity the estimated share of words questions must have in common to be joined
+     * @return the numbers of the questions of every cluster of at least two questions, largest cluster first
+     */
+    public static List<int[]> findClusters(IntFunction<Question> questions, int count, double minimumSimilarity) {
+        QuestionFingerprint[] fingerprints = IntStream.range(0, count)
+                .parallel()
+                .mapToObj(number -> QuestionFingerprint.of(questions.apply(number)))
+                .toArray(QuestionFingerprint[]::new);
+        byte[] signatures = new byte[count * QuestionFingerprint.SIGNATURE_LENGTH];
+        for (int number = 0; number < count; number++) {
+            byte[] signature = fingerprints[number].getSignature();
+            if (signature != null) {
+                System.arraycopy(signature, 0, signatures, number * QuestionFingerprint.SIGNATURE_LENGTH, signature.length);
+            }
+        }
+        int[] parents = new int[count];
+        for (int number = 0; number < count; number++) {
+            parents[number] = number;
+        }
+        Map<Long, Integer> firstWithContent = new HashMap<>();
+        for (int number = 0; number < count; number++) {
+            Integer first = firstWithContent.putIfAbsent(fingerprints[number].getContentHash(), number);
+            if (first != null) {
+                union(parents, first, number);
+            }
+        }
+        List<long[]> similarPairs = IntStream.range(0, QuestionFingerprint.BANDS)
+                .parallel()
+                .mapToObj(band -> similarNeighbours(fingerprints, signatures, band, minimumSimilarity))
+                .collect(Collectors.toList());
+        for (long[] pairs : similarPairs) {
+            for (long pair : pairs) {
+                union(parents, (int) (pair >>> 32), (int) pair);
+            }
+        }
+        return collectClusters(parents);
+    }
+
+    /**
+     * @return pairs of similar questions agreeing on the band, each packed into a long
+     */
+    private static long[] similarNeighbours(QuestionFingerprint[] fingerprints, byte[] signatures, int band, double minimumSimilarity) {
+        long[] keyed = new long[fingerprints.length];
+        int size = 0;
+        for (int number = 0; number < fingerprints.length; number++) {
+            if (fingerprints[number].getSignature() != null) {
+                long key = QuestionFingerprint.bandKey(signatures, number * QuestionFingerprint.SIGNATURE_LENGTH, band) & 0xFFFFFFFFL;
+                keyed[size++] = key << 32 | number;
+            }
+        }
+        Arrays.sort(keyed, 0, size);
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        int runStart = 0;
+        for (int i = 1; i < size; i++) {
+            if (keyed[i] >>> 32 != keyed[i - 1] >>> 32) {
+                runStart = i;
+                continue;
+            }
+            int number = (int) keyed[i];
+            // compare with the previous and the first question of the run, similar questions chain up into one cluster
+            for (int other : new int[]{(int) keyed[i - 1], (int) keyed[runStart]}) {
+                double similarity = QuestionFingerprint.similarity(signatures, other * QuestionFingerprint.SIGNATURE_LENGTH,
+                        signatures, number * QuestionFingerprint.SIGNATURE_LENGTH);
+                if (similarity >= minimumSimilarity) {
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairCount * 2);
+                    }
+                    pairs[pairCount++] = (long) other << 32 | number;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(pairs, pairCount);
+    }
+
+    private static int find(int[] parents, int number) {
+        while (parents[number] != number) {
+            parents[number] = parents[parents[number]];
+            number = parents[number];
+        }
+        return number;
+    }
+
+    private static void union(int[] parents, int first, int second) {
+        int firstRoot = find(parents, first);
+        int secondRoot = find(parents, second);
+        if (firstRoot != secondRoot) {
+            // the lower number becomes the root, so clusters are named after their oldest question
+            parents[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+        }
+    }
+
+    private static List<int[]> collectClusters(int[] parents) {
+        Map<Integer, List<Integer>> members = new HashMap<>();
+        for (int number = 0; number < parents.length; number++) {
+            int root = find(parents, number);
+            // the root is the lowest number of its cluster, so it was passed before any other member
+            if (root != number) {
+                members.computeIfAbsent(root, r -> new ArrayList<>(List.of(r))).add(number);
+            }
+        }
+        List<int[]> clusters = new ArrayList<>(members.size());
+        for (List<Integer> cluster : members.values()) {
+            clusters.add(cluster.stream().mapToInt(Integer::intValue).toArray());
+        }
+        clusters.sort((first, second) -> first.length != second.length
+                ? Integer.compare(second.length, first.length)
+                : Integer.compare(first[0], second[0]));
+        return clusters;
+    }
+
+    /**
+     * Usage: DuplicateScanner storage.json [minimum similarity]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: DuplicateScanner <question json file> [minimum similarity, default 0.75]");
+            return;
+        }
+        double minimumSimilarity = args.length == 2 ? Double.parseDouble(args[1]) : 0.75;
+        List<Question> questions = new ArrayList<>();
+        StreamingQuestionReader.read(Path.of(args[0]), new Gson(), questions::add, (read, bytesRead, totalBytes) -> { });
+        List<int[]> clusters = findClusters(questions::get, questions.size(), minimumSimilarity);
+        for (int[] cluster : clusters) {
+            System.out.printf(Locale.ROOT, "%d similar questions:%n", cluster.length);
+            for (int number : cluster) {
+                System.out.printf(Locale.ROOT, "  #%d %s%n", number, questions.get(number).getQuestion());
+            }
+        }
+        System.out.printf(Locale.ROOT, "Found %d clusters in %d questions%n", clusters.size(), questions.size());
+    }
+}
@@ -0,0 +1,164 @@
+package service.dedup;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What duplicate detection knows about a question: a hash of its normalized content for exact duplicates
+ * and a MinHash signature of its words for near duplicates.
+ * <p>
+ * Normalizing lower cases the texts, turns everything but letters and digits into single spaces and ignores the order of the answers,
+ * so "Who was the first man on the moon?" and "who was the first  man on the moon" with the same answers have the same content hash.
+ */
+final class QuestionFingerprint {
+    static final int SIGNATURE_LENGTH = 32;
+    static final int BANDS = 8;
+    static final int ROWS_PER_BAND = SIGNATURE_LENGTH / BANDS;
+    /**
+     * Two unrelated signatures still agree on this share of their values, because only the lowest 8 bits of every MinHash value are kept
+     */
+    private static final double ACCIDENTAL_AGREEMENT = 1 / 256d;
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final long contentHash;
+    /**
+     * The lowest 8 bits of every MinHash value, null if the question contains no words
+     */
+    private final byte[] signature;
+
+    private QuestionFingerprint(long contentHash, byte[] signature) {
+        this.contentHash = contentHash;
+        this.signature = signature;
+    }
+
+    static QuestionFingerprint of(Question question) {
+        List<String> questionWords = words(question.getQuestion());
+        List<String> answerTexts = new ArrayList<>(question.getAnswers().size());
+        List<String> answerWords = new ArrayList<>();
+        for (Answer answer : question.getAnswers()) {
+            List<String> words = words(answer.getAnswer());
+            answerWords.addAll(words);
+            answerTexts.add((answer.isCorrect() ? "+" : "-") + String.join(" ", words));
+        }
+        answerTexts.sort(null);
+        long contentHash = hash(String.join(" ", questionWords));
+        for (String answerText : answerTexts) {
+            contentHash = mix(contentHash * 31 + hash(answerText));
+        }
+        return new QuestionFingerprint(contentHash, signature(questionWords, answerWords));
+    }
+
+    /**
+     * Shingles are the words and pairs of neighbouring words of the question text plus the words of the answers
+     */
+    private static byte[] signature(List<String> questionWords, List<String> answerWords) {
+        if (questionWords.isEmpty() && answerWords.isEmpty()) {
+            return null;
+        }
+        long[] minimums = new long[SIGNATURE_LENGTH];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (int i = 0; i < questionWords.size(); i++) {
+            long wordHash = hash(questionWords.get(i));
+            addShingle(minimums, wordHash);
+            if (i > 0) {
+                addShingle(minimums, mix(hash(questionWords.get(i - 1)) * 31 + wordHash));
+            }
+        }
+        for (String answerWord : answerWords) {
+            // answer words are kept apart from the same words in the question text
+            addShingle(minimums, mix(hash(answerWord) + 1));
+        }
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            signature[i] = (byte) minimums[i];
+        }
+        return signature;
+    }
+
+    private static void addShingle(long[] minimums, long shingleHash) {
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            long value = mix(shingleHash + (i + 1) * SEED_STEP) >>> 1;
+            if (value < minimums[i]) {
+                minimums[i] = value;
+            }
+        }
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            boolean partOfWord = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfWord && start < 0) {
+                start = i;
+            } else if (!partOfWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static long hash(String text) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreads every input bit over the whole value
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    long getContentHash() {
+        return contentHash;
+    }
+
+    byte[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * @return the values of one band packed into an int, questions agreeing on all of them are candidates for near duplicates
+     */
+    static int bandKey(byte[] signatures, int offset, int band) {
+        int key = 0;
+        int start = offset + band * ROWS_PER_BAND;
+        for (int i = 0; i < ROWS_PER_BAND; i++) {
+            key = (key << 8) | (signatures[start + i] & 0xFF);
+        }
+        return key;
+    }
+
+    /**
+     * @return the estimated share of shingles the two questions have in common, between 0 and 1
+     */
+    static double similarity(byte[] first, int firstOffset, byte[] second, int secondOffset) {
+        int agreeing = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (first[firstOffset + i] == second[secondOffset + i]) {
+                agreeing++;
+            }
+        }
+        double agreement = agreeing / (double) SIGNATURE_LENGTH;
+        return Math.max(0, (agreement - ACCIDENTAL_AGREEMENT) / (1 - ACCIDENTAL_AGREEMENT));
+    }
+}
@@ -0,0 +1,187 @@
+package service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.metrics.Metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs work for channels on a fixed number of lanes, each being a single thread with a bounded queue.
+ * All work of one channel lands on the same lane, so it is done one after another in the order it was submitted,
+ * while different channels are spread over all lanes and run in parallel.
+ * Work is refused instead of queued when the lane of its channel is full.
+ */
+public class ChannelLaneExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(ChannelLaneExecutor.class);
+
+    private static final int LANES = Integer.getInteger("bot.execution.lanes", Runtime.getRuntime().availableProcessors() * 2);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("bot.execution.queueCapacity", 1000);
+    /**
+     * Overload is logged at most once in this interval
+     */
+    private static final long OVERLOAD_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final ChannelLaneExecutor instance = new ChannelLaneExecutor(LANES, QUEUE_CAPACITY);
+
+    public static ChannelLaneExecutor getInstance() {
+        return instance;
+    }
+
+    private final Lane[] lanes;
+    private final LongAdder submittedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final AtomicLong lastOverloadLog = new AtomicLong(System.nanoTime() - OVERLOAD_LOG_INTERVAL_NANOS);
+    private volatile boolean shutDown;
+
+    private ChannelLaneExecutor(int laneCount, int queueCapacity) {
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, queueCapacity);
+            lanes[i].thread.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutDown, "channel-lanes-shutdown"));
+        Metrics.getInstance().registerGauge("bot_lane_queued_messages", "Messages waiting in all lanes", this::getQueuedTasks);
+        Metrics.getInstance().registerGauge("bot_lane_longest_queue", "Messages waiting in the fullest lane", this::getLongestQueue);
+        Metrics.getInstance().registerGauge("bot_lane_rejected_messages", "Messages dropped because their lane was full", this::getRejectedTasks);
+    }
+
+    /**
+     * @param channelId the channel the work belongs to, work of the same channel is done in submission order
+     * @param task the work
+     * @return false if the lane of the channel is full or the executor is shut down, the work is dropped then
+     */
+    public boolean submit(long channelId, Runnable task) {
+        if (shutDown) {
+            return false;
+        }
+        Lane lane = lanes[laneOf(channelId)];
+        if (!lane.queue.offer(task)) {
+            rejectedTasks.increment();
+            logOverload(lane);
+            return false;
+        }
+        submittedTasks.increment();
+        return true;
+    }
+
+    /**
+     * Spreads the channel ids evenly, their lower bits are not random enough on their own
+     */
+    private int laneOf(long channelId) {
+        long hash = channelId * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) Math.floorMod(hash, (long) lanes.length);
+    }
+
+    private void logOverload(Lane lane) {
+        long now = System.nanoTime();
+        long last = lastOverloadLog.get();
+        if (now - last >= OVERLOAD_LOG_INTERVAL_NANOS && lastOverloadLog.compareAndSet(last, now)) {
+            logger.warn("Lane {} is full, messages are being dropped. {} dropped so far", lane.index, rejectedTasks.sum());
+        }
+    }
+
+    /**
+     * @return work waiting in all lanes right now
+     */
+    public int getQueuedTasks() {
+        int queued = 0;
+        for (Lane lane : lanes) {
+            queued += lane.queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * @return the most work waiting in a single lane right now
+     */
+    public int getLongestQueue() {
+        int longest = 0;
+        for (Lane lane : lanes) {
+            longest = Math.max(longest, lane.queue.size());
+        }
+        return longest;
+    }
+
+    public long getSubmittedTasks() {
+        return submittedTasks.sum();
+    }
+
+    /**
+     * @return work refused because its lane was full
+     */
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    /**
+     * @return work that threw an exception
+     */
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Stops accepting work and waits a few seconds for the queued work to be done
+     */
+    private void shutDown() {
+        shutDown = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+
+        private Lane(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "channel-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    // polling instead of interrupting on shut down, an interrupt would close file channels used by the work
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == null) {
+                    if (shutDown) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failedTasks.increment();
+                    logger.warn("Work in lane {} failed", index, t);
+                }
+            }
+        }
+    }
+}
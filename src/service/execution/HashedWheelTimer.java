@@ -0,0 +1,215 @@
+package service.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs tasks once their delay has passed, with a precision of one tick.
+ * Timeouts are kept in a ring of buckets, one per tick, that a single thread walks through tick by tick.
+ * Scheduling and cancelling are constant time no matter how many timeouts are pending, so it suits many cheap timeouts that are mostly cancelled before they expire.
+ * Tasks run on the timer thread and must not block, hand longer work to another thread.
+ */
+public class HashedWheelTimer {
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    /**
+     * Timeouts scheduled by other threads, the timer thread moves them into their buckets at the next tick
+     */
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong scheduledTimeouts = new AtomicLong();
+    private final long startTime = System.nanoTime();
+    private final Thread thread;
+    /**
+     * Only used by the timer thread
+     */
+    private long tick;
+    private volatile boolean stopped;
+
+    /**
+     * Starts the timer thread right away
+     * @param name the name of the timer thread
+     * @param tickDuration how often the timer looks for expired timeouts
+     * @param wheelSize the number of buckets, rounded up to a power of two. Timeouts further away than wheelSize ticks are passed over once per round.
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickDuration and wheelSize must be positive");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @param task run on the timer thread once the delay has passed
+     * @return the timeout, can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay)));
+        scheduledTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts that neither ran nor were removed after being cancelled
+     */
+    public long getScheduledTimeouts() {
+        return scheduledTimeouts.get();
+    }
+
+    /**
+     * Stops the timer thread, pending timeouts never run
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void run() {
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                return;
+            }
+            transferNewTimeouts();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * @return false if the thread was interrupted
+     */
+    private boolean waitForNextTick() {
+        long deadline = (tick + 1) * tickNanos;
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void transferNewTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                scheduledTimeouts.decrementAndGet();
+                continue;
+            }
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout previous = null;
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.cancelled || timeout.remainingRounds <= 0) {
+                bucket.remove(previous, timeout);
+                scheduledTimeouts.decrementAndGet();
+                if (!timeout.cancelled) {
+                    runTask(timeout);
+                }
+            } else {
+                timeout.remainingRounds--;
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    private static void runTask(Timeout timeout) {
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            logger.error("Timeout task failed", e);
+        }
+    }
+
+    /**
+     * A task waiting to be run by the timer
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        /**
+         * Nanoseconds since the start of the timer
+         */
+        private final long deadline;
+        private volatile boolean cancelled;
+        /**
+         * The number of times the timer has to pass the bucket before the timeout expires, only used by the timer thread
+         */
+        private long remainingRounds;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Keeps the task from running if it has not started yet. The timeout is dropped from its bucket the next time the timer passes it.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * A singly linked list of timeouts, only used by the timer thread
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout previous, Timeout timeout) {
+            if (previous == null) {
+                head = timeout.next;
+            } else {
+                previous.next = timeout.next;
+            }
+            if (tail == timeout) {
+                tail = previous;
+            }
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package service.matching;
+
+import dataObjects.Answer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recognizes the answers of one question typed as text, e.g. "neil armstrong" for the answer "Neil Armstrong".
+ * Text is compared after normalizing it: only letters and digits count, in lower case, so spaces, punctuation and case never matter.
+ * A few typing errors are tolerated depending on the length of the answer, see {@link #allowedDistance(char[])}.
+ * <p>
+ * The matcher is built once when a question is asked and then checked against every chat message of the channel,
+ * so matching never allocates: the answers are compiled to bit masks for Myers' bit-parallel edit distance, and a message is first
+ * rejected by its normalized length alone, which is enough for almost all chat. Answers longer than 64 letters and digits only match exactly.
+ * <p>
+ * Instances are immutable and can be used by several threads at once.
+ */
+public class AnswerMatcher {
+    /**
+     * The most typing errors tolerated in any answer
+     */
+    private static final int MAXIMUM_DISTANCE = Integer.getInteger("bot.answers.maxDistance", 2);
+    private static final int ASCII = 128;
+    private static final int WORD_BITS = 64;
+
+    private final char[][] normalizedAnswers;
+    private final int[] allowedDistances;
+    /**
+     * For every answer and ascii character, the positions in the answer holding that character as bits
+     */
+    private final long[][] asciiMasks;
+    /**
+     * The other characters of every answer and their positions, looked up linearly as answers rarely contain many
+     */
+    private final char[][] otherCharacters;
+    private final long[][] otherMasks;
+    private final int shortestLength;
+    private final int longestLength;
+
+    public AnswerMatcher(List<Answer> answers) {
+        int count = answers.size();
+        normalizedAnswers = new char[count][];
+        allowedDistances = new int[count];
+        asciiMasks = new long[count][];
+        otherCharacters = new char[count][];
+        otherMasks = new long[count][];
+        int shortest = Integer.MAX_VALUE;
+        int longest = -1;
+        for (int i = 0; i < count; i++) {
+            char[] normalized = normalize(String.valueOf(answers.get(i).getAnswer()));
+            normalizedAnswers[i] = normalized;
+            // an answer without letters or digits can never be typed, it is left to !answer
+            allowedDistances[i] = normalized.length == 0 ? -1 : allowedDistance(normalized);
+            if (normalized.length > 0) {
+                shortest = Math.min(shortest, normalized.length - allowedDistances[i]);
+                longest = Math.max(longest, normalized.length + allowedDistances[i]);
+            }
+            if (normalized.length <= WORD_BITS) {
+                compileMasks(i, normalized);
+            }
+        }
+        shortestLength = shortest;
+        longestLength = longest;
+    }
+
+    /**
+     * @return how many typing errors are tolerated in the normalized answer. Numbers have to be exact, 1968 is not 1969.
+     */
+    static int allowedDistance(char[] normalizedAnswer) {
+        int length = normalizedAnswer.length;
+        if (length <= 3 || isNumber(normalizedAnswer)) {
+            return 0;
+        }
+        return Math.min(MAXIMUM_DISTANCE, length <= 7 ? 1 : 2);
+    }
+
+    private static boolean isNumber(char[] normalizedAnswer) {
+        for (char character : normalizedAnswer) {
+            if (character < '0' || character > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compileMasks(int answer, char[] normalized) {
+        long[] ascii = new long[ASCII];
+        char[] others = new char[normalized.length];
+        long[] masks = new long[normalized.length];
+        int otherCount = 0;
+        for (int position = 0; position < normalized.length; position++) {
+            char character = normalized[position];
+            long bit = 1L << position;
+            if (character < ASCII) {
+                ascii[character] |= bit;
+                continue;
+            }
+            int other = 0;
+            while (other < otherCount && others[other] != character) {
+                other++;
+            }
+            if (other == otherCount) {
+                others[otherCount++] = character;
+            }
+            masks[other] |= bit;
+        }
+        asciiMasks[answer] = ascii;
+        otherCharacters[answer] = Arrays.copyOf(others, otherCount);
+        otherMasks[answer] = Arrays.copyOf(masks, otherCount);
+    }
+
+    /**
+     * @param text a chat message
+     * @return the index of the answer the text is closest to or -1 if it is not close enough to any of them.
+     * Of equally close answers the first one is returned.
+     */
+    public int match(String text) {
+        if (text.length() < shortestLength) {
+            return -1;
+        }
+        int length = normalizedLength(text, longestLength + 1);
+        if (length < shortestLength || length > longestLength) {
+            return -1;
+        }
+        int bestAnswer = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < normalizedAnswers.length; i++) {
+            int allowed = allowedDistances[i];
+            if (allowed < 0 || Math.abs(normalizedAnswers[i].length - length) > Math.min(allowed, bestDistance - 1)) {
+                continue;
+            }
+            int distance = distance(i, text, length, Math.min(allowed, bestDistance - 1));
+            if (distance >= 0) {
+                bestAnswer = i;
+                bestDistance = distance;
+                if (distance == 0) {
+                    break;
+                }
+            }
+        }
+        return bestAnswer;
+    }
+
+    /**
+     * Myers' bit-parallel edit distance between the answer and the normalized text, computed column by column while the text is read.
+     * @param textLength the normalized length of the text
+     * @return the distance or -1 if it is larger than the limit
+     */
+    private int distance(int answer, String text, int textLength, int limit) {
+        char[] pattern = normalizedAnswers[answer];
+        if (pattern.length > WORD_BITS) {
+            return equalsNormalized(pattern, text) ? 0 : -1;
+        }
+        long[] ascii = asciiMasks[answer];
+        long last = 1L << (pattern.length - 1);
+        long positive = pattern.length == WORD_BITS ? -1L : (1L << pattern.length) - 1;
+        long negative = 0;
+        int score = pattern.length;
+        int read = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char character = normalizeCharacter(text.charAt(i));
+            if (character == 0) {
+                continue;
+            }
+            long equal = character < ASCII ? ascii[character] : otherMask(answer, character);
+            long vertical = equal | negative;
+            long horizontal = (((equal & positive) + positive) ^ positive) | equal;
+            long horizontalPositive = negative | ~(horizontal | positive);
+            long horizontalNegative = positive & horizontal;
+            if ((horizontalPositive & last) != 0) {
+                score++;
+            } else if ((horizontalNegative & last) != 0) {
+                score--;
+            }
+            // the first row grows by one per character read, the whole answer is compared, not a part of it
+            horizontalPositive = (horizontalPositive << 1) | 1;
+            horizontalNegative <<= 1;
+            positive = horizontalNegative | ~(vertical | horizontalPositive);
+            negative = horizontalPositive & vertical;
+            read++;
+            // every character still to come lowers the distance by one at most
+            if (score - (textLength - read) > limit) {
+                return -1;
+            }
+        }
+        return score <= limit ? score : -1;
+    }
+
+    private long otherMask(int answer, char character) {
+        char[] characters = otherCharacters[answer];
+        for (int i = 0; i < characters.length; i++) {
+            if (characters[i] == character) {
+                return otherMasks[answer][i];
+            }
+        }
+        return 0;
+    }
+
+    private static boolean equalsNormalized(char[] pattern, String text) {
+        int position = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char character = normalizeCharacter(text.charAt(i));
+            if (character == 0) {
+                continue;
+            }
+            if (position == pattern.length || pattern[position++] != character) {
+                return false;
+            }
+        }
+        return position == pattern.length;
+    }
+
+    /**
+     * @param limit the length at which counting stops, longer texts are not looked at completely
+     * @return the number of letters and digits in the text, at most the limit
+     */
+    private static int normalizedLength(String text, int limit) {
+        int length = 0;
+        for (int i = 0, textLength = text.length(); i < textLength && length < limit; i++) {
+            if (normalizeCharacter(text.charAt(i)) != 0) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    static char[] normalize(String text) {
+        char[] normalized = new char[normalizedLength(text, Integer.MAX_VALUE)];
+        int position = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char character = normalizeCharacter(text.charAt(i));
+            if (character != 0) {
+                normalized[position++] = character;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * @return the character in lower case or 0 if it is neither a letter nor a digit and does not count
+     */
+    private static char normalizeCharacter(char character) {
+        if (character < ASCII) {
+            if (character >= 'a' && character <= 'z' || character >= '0' && character <= '9') {
+                return character;
+            }
+            return character >= 'A' && character <= 'Z' ? (char) (character + ('a' - 'A')) : 0;
+        }
+        return Character.isLetterOrDigit(character) ? Character.toLowerCase(character) : 0;
+    }
+}
@@ -0,0 +1,150 @@
+package service.messaging;
+
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import service.metrics.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends messages to channels. Feedback for single users is collected per channel for a short time
+ * and sent as one message naming all of them, so busy channels do not cause a request per guess.
+ * Priority messages are sent right away. Feedback still being collected for the channel is sent just before them,
+ * so it never arrives after e.g. the message announcing the winner.
+ */
+public class OutboundMessageService {
+    private static final long FLUSH_INTERVAL_MILLIS = Long.getLong("bot.outbound.flushIntervalMillis", 750);
+    /**
+     * Feedback for this many users is sent right away instead of waiting for the interval to pass
+     */
+    private static final int MAXIMUM_BATCH_SIZE = Integer.getInteger("bot.outbound.maxBatchSize", 20);
+
+    private static final OutboundMessageService instance = new OutboundMessageService();
+
+    public static OutboundMessageService getInstance() {
+        return instance;
+    }
+
+    private final Map<Long, ChannelFeedback> pendingFeedback = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedFeedback = new AtomicInteger();
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbound-messages");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private OutboundMessageService() {
+        Metrics.getInstance().registerGauge("bot_outbound_queued_feedback", "Feedback collected but not yet sent", queuedFeedback::get);
+    }
+
+    /**
+     * Sends the message right away, feedback waiting to be sent to the channel is sent before it
+     */
+    public void sendPriority(MessageChannel channel, String message) {
+        ChannelFeedback channelFeedback = pendingFeedback.get(channel.getIdLong());
+        if (channelFeedback != null) {
+            // also waits for a batch being sent by another thread right now
+            flush(channel.getIdLong(), channelFeedback);
+        }
+        channel.sendMessage(message).queue();
+    }
+
+    /**
+     * Collects feedback for a user. It is sent together with the same feedback for other users of the channel
+     * once the flush interval passed or the batch is full, e.g. "Alice, Bob, we are sorry your answer was wrong."
+     * A user gets the same feedback only once per batch, users of the same name are told apart by their id.
+     * @param user the user the feedback is addressed to by name
+     * @param feedback the text following the names
+     */
+    public void queueFeedback(MessageChannel channel, User user, String feedback) {
+        long channelId = channel.getIdLong();
+        while (true) {
+            ChannelFeedback channelFeedback = pendingFeedback.computeIfAbsent(channelId, id -> new ChannelFeedback(channel));
+            synchronized (channelFeedback) {
+                if (channelFeedback.sent) {
+                    // flushed and removed between looking it up and locking it, start a new batch
+                    continue;
+                }
+                if (!channelFeedback.add(feedback, user)) {
+                    return;
+                }
+                queuedFeedback.incrementAndGet();
+                if (channelFeedback.size < MAXIMUM_BATCH_SIZE) {
+                    if (channelFeedback.size == 1) {
+                        flushExecutor.schedule(() -> flush(channelId, channelFeedback), FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    return;
+                }
+                send(channelId, channelFeedback);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return feedback collected but not yet sent
+     */
+    public int getQueuedFeedback() {
+        return queuedFeedback.get();
+    }
+
+    private void flush(long channelId, ChannelFeedback channelFeedback) {
+        synchronized (channelFeedback) {
+            if (!channelFeedback.sent) {
+                send(channelId, channelFeedback);
+            }
+        }
+    }
+
+    /**
+     * Closes the batch and sends it, has to be called while holding its lock.
+     * The batch is only removed once it is queued, so a priority message finding it waits for the lock and cannot overtake it.
+     */
+    private void send(long channelId, ChannelFeedback channelFeedback) {
+        channelFeedback.sent = true;
+        queuedFeedback.addAndGet(-channelFeedback.size);
+        StringBuilder message = new StringBuilder();
+        for (Map.Entry<String, Map<Long, String>> entry : channelFeedback.userNamesByFeedback.entrySet()) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(String.join(", ", entry.getValue().values())).append(", ").append(entry.getKey());
+        }
+        channelFeedback.channel.sendMessage(message.toString()).queue();
+        pendingFeedback.remove(channelId, channelFeedback);
+    }
+
+    /**
+     * Feedback collected for one channel
+     */
+    private static final class ChannelFeedback {
+        private final MessageChannel channel;
+        /**
+         * The names of the users getting each feedback by their ids, in the order they were added
+         */
+        private final Map<String, Map<Long, String>> userNamesByFeedback = new LinkedHashMap<>();
+        private int size;
+        private boolean sent;
+
+        private ChannelFeedback(MessageChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * @return false if the user already gets that feedback
+         */
+        private boolean add(String feedback, User user) {
+            if (userNamesByFeedback.computeIfAbsent(feedback, key -> new LinkedHashMap<>()).putIfAbsent(user.getIdLong(), user.getName()) != null) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+    }
+}
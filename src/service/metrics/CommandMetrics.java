@@ -0,0 +1,25 @@
+package service.metrics;
+
+/**
+ * How often a command was handled and how long handling it took
+ */
+public class CommandMetrics {
+    private final String command;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    CommandMetrics(String command) {
+        this.command = command;
+    }
+
+    public void record(long nanos) {
+        latency.record(nanos);
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,84 @@
+package service.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the bot's metrics: latency and count per command, durations of storage writes and gauges registered by the services.
+ * Callers keep the objects they record to, so recording needs no lookup.
+ */
+public class Metrics {
+    private static final Metrics instance = new Metrics();
+
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    private final Map<String, CommandMetrics> commands = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final LatencyHistogram storageWrites = new LatencyHistogram();
+
+    private Metrics() {
+
+    }
+
+    /**
+     * @return the metrics of the command, created the first time they are requested
+     */
+    public CommandMetrics command(String command) {
+        return commands.computeIfAbsent(command, CommandMetrics::new);
+    }
+
+    /**
+     * @return how long appending questions and writing snapshots took
+     */
+    public LatencyHistogram getStorageWrites() {
+        return storageWrites;
+    }
+
+    /**
+     * @param name the name the value is exported with, e.g. bot_active_games
+     * @param help a sentence describing the value
+     * @param value read every time the metrics are exported
+     */
+    public void registerGauge(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge(name, help, value));
+    }
+
+    public Collection<CommandMetrics> getCommands() {
+        return commands.values();
+    }
+
+    public Collection<Gauge> getGauges() {
+        return gauges.values();
+    }
+
+    /**
+     * A value that is read when exported
+     */
+    public static final class Gauge {
+        private final String name;
+        private final String help;
+        private final LongSupplier value;
+
+        private Gauge(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public long getValue() {
+            return value.getAsLong();
+        }
+    }
+}
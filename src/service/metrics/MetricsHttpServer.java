@@ -0,0 +1,95 @@
+package service.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Serves the metrics in the Prometheus text format on /metrics
+ */
+public class MetricsHttpServer {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsHttpServer.class);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final Metrics metrics;
+    private final HttpServer server;
+
+    /**
+     * Starts serving right away
+     * @param host the address to listen on, use 127.0.0.1 to only allow local scraping
+     */
+    public MetricsHttpServer(Metrics metrics, String host, int port) throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        logger.info("Serving metrics on http://{}:{}/metrics", host, port);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    /**
+     * @return all metrics in the Prometheus text format
+     */
+    public String render() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP bot_commands_total Commands handled, messages that are no command are counted as other\n");
+        text.append("# TYPE bot_commands_total counter\n");
+        for (CommandMetrics command : metrics.getCommands()) {
+            text.append("bot_commands_total{command=\"").append(escape(command.getCommand())).append("\"} ")
+                    .append(command.getLatency().getCount()).append('\n');
+        }
+        text.append("# HELP bot_command_latency_seconds Time it took to handle a command\n");
+        text.append("# TYPE bot_command_latency_seconds summary\n");
+        for (CommandMetrics command : metrics.getCommands()) {
+            appendSummary(text, "bot_command_latency_seconds", "command=\"" + escape(command.getCommand()) + "\"", command.getLatency());
+        }
+        text.append("# HELP bot_storage_write_seconds Time it took to append a question to the journal or write a snapshot\n");
+        text.append("# TYPE bot_storage_write_seconds summary\n");
+        appendSummary(text, "bot_storage_write_seconds", "", metrics.getStorageWrites());
+        for (Metrics.Gauge gauge : metrics.getGauges()) {
+            text.append("# HELP ").append(gauge.getName()).append(' ').append(gauge.getHelp()).append('\n');
+            text.append("# TYPE ").append(gauge.getName()).append(" gauge\n");
+            text.append(gauge.getName()).append(' ').append(gauge.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void appendSummary(StringBuilder text, String name, String labels, LatencyHistogram histogram) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES) {
+            text.append(name).append('{').append(labels).append(separator).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.getPercentile(quantile * 100))).append('\n');
+        }
+        String labelBlock = labels.isEmpty() ? "" : "{" + labels + "}";
+        text.append(name).append("_sum").append(labelBlock).append(' ').append(seconds(histogram.getSum())).append('\n');
+        text.append(name).append("_count").append(labelBlock).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_PER_SECOND);
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
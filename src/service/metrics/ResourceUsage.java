@@ -0,0 +1,71 @@
+package service.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reads how much memory the process uses, to compare configurations of the bot with each other
+ */
+public class ResourceUsage {
+    private static final Path PROCESS_STATUS = Path.of("/proc/self/status");
+    private static final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+    private ResourceUsage() {
+
+    }
+
+    /**
+     * Adds the memory used to the metrics
+     */
+    public static void registerGauges(Metrics metrics) {
+        metrics.registerGauge("bot_heap_used_bytes", "Heap memory used right now", ResourceUsage::getHeapUsedBytes);
+        metrics.registerGauge("bot_resident_memory_bytes", "Memory of the process held in RAM, -1 where it is not known", ResourceUsage::getResidentBytes);
+    }
+
+    public static long getHeapUsedBytes() {
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+
+    public static long getNonHeapUsedBytes() {
+        return memoryMXBean.getNonHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return the resident set size of the process, -1 on systems without /proc
+     */
+    public static long getResidentBytes() {
+        try {
+            List<String> lines = Files.readAllLines(PROCESS_STATUS);
+            for (String line : lines) {
+                // e.g. "VmRSS:	  123456 kB"
+                if (line.startsWith("VmRSS:")) {
+                    String kilobytes = line.substring("VmRSS:".length()).replace("kB", "").trim();
+                    return Long.parseLong(kilobytes) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return milliseconds since the JVM started
+     */
+    public static long getUptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * @return e.g. "heap 42 MB, non-heap 30 MB, resident 180 MB"
+     */
+    public static String describe() {
+        long resident = getResidentBytes();
+        return String.format("heap %d MB, non-heap %d MB, resident %s",
+                getHeapUsedBytes() >> 20, getNonHeapUsedBytes() >> 20, resident < 0 ? "unknown" : (resident >> 20) + " MB");
+    }
+}
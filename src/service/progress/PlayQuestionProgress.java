@@ -3,6 +3,8 @@ package service.progress;
 import dataObjects.Question;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.entities.User;
+import service.execution.HashedWheelTimer;
+import service.matching.AnswerMatcher;
 
 import java.nio.channels.Channel;
 
@@ -15,22 +17,66 @@ public class PlayQuestionProgress {
      * The question that was asked.
      */
     private final Question question;
+    /**
+     * The number of the question in the QuestionStorageService.
+     */
+    private final int questionIndex;
     /**
      * The channel the user issued the !question command in.
      */
     private final MessageChannel channel;
+    /**
+     * The id of the channel, questions being played are looked up by it.
+     */
+    private final long channelId;
+    /**
+     * Recognizes the answers typed as text, built once when the question is asked.
+     */
+    private final AnswerMatcher answerMatcher;
+    /**
+     * The hints and the end of the round waiting to happen, empty if the round is not timed.
+     */
+    private volatile HashedWheelTimer.Timeout[] timeouts = new HashedWheelTimer.Timeout[0];
 
-    public PlayQuestionProgress(Question question, MessageChannel channel) {
+    public PlayQuestionProgress(Question question, int questionIndex, MessageChannel channel) {
         this.question = question;
+        this.questionIndex = questionIndex;
         this.channel = channel;
+        this.channelId = channel.getIdLong();
+        this.answerMatcher = new AnswerMatcher(question.getAnswers());
     }
 
     public Question getQuestion() {
         return question;
     }
 
+    public int getQuestionIndex() {
+        return questionIndex;
+    }
+
+    public AnswerMatcher getAnswerMatcher() {
+        return answerMatcher;
+    }
+
     public MessageChannel getChannel() {
         return channel;
     }
 
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public void setTimeouts(HashedWheelTimer.Timeout[] timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * The question is over, hints and the end of the round do not need to happen anymore
+     */
+    public void cancelTimeouts() {
+        for (HashedWheelTimer.Timeout timeout : timeouts) {
+            timeout.cancel();
+        }
+    }
+
 }
@@ -22,13 +22,17 @@ public class QuestionCreationProgress {
     }
 
     /**
-     * The question instance we are creating in the QuestionCreationService.
+     * The question as far as it was created in the QuestionCreationService. Questions cannot be changed, every step replaces it.
      */
-    private final Question question;
+    private volatile Question question;
     /**
-     * The user that issues the !createQuestion command.
+     * The id of the user that issued the !createQuestion command.
      */
-    private final User user;
+    private final long userId;
+    /**
+     * The name of that user, to address them in messages.
+     */
+    private final String userName;
     /**
      * The channel the user issued the !createQuestion command in.
      */
@@ -38,12 +42,25 @@ public class QuestionCreationProgress {
      */
     @NotNull
     private State state;
+    /**
+     * When the user last interacted with this question creation, in milliseconds since the epoch.
+     */
+    private volatile long lastActivity;
 
     public QuestionCreationProgress(State state, Question question, User user, MessageChannel channel) {
+        this(state, question, user.getIdLong(), user.getName(), channel, System.currentTimeMillis());
+    }
+
+    /**
+     * Continues a question creation, e.g. one restored from the state store
+     */
+    public QuestionCreationProgress(State state, Question question, long userId, String userName, MessageChannel channel, long lastActivity) {
         this.state = state;
         this.question = question;
-        this.user = user;
+        this.userId = userId;
+        this.userName = userName;
         this.channel = channel;
+        this.lastActivity = lastActivity;
     }
 
     public Question getQuestion() {
@@ -54,14 +71,37 @@ public class QuestionCreationProgress {
         return state;
     }
 
-    public User getUser() {
-        return user;
+    public String getUserName() {
+        return userName;
     }
 
     public MessageChannel getChannel() {
         return channel;
     }
 
+    public long getChannelId() {
+        return channel.getIdLong();
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Marks the question creation as active right now
+     */
+    public void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    public void setQuestion(Question question) {
+        this.question = question;
+    }
+
     public void setState(State state) {
         this.state = state;
     }
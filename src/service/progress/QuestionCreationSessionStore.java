@@ -0,0 +1,162 @@
+package service.progress;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Holds the questions currently being created, indexed by the channel and the user creating them.
+ * Sessions that have not been touched for longer than the time to live are evicted.
+ */
+public class QuestionCreationSessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionCreationSessionStore.class);
+
+    private final Map<SessionKey, QuestionCreationProgress> sessions = new ConcurrentHashMap<>();
+    /**
+     * Number of open sessions per channel id. Lets us answer "nobody is creating a question here" without building a key.
+     */
+    private final Map<Long, Integer> openSessionsPerChannel = new ConcurrentHashMap<>();
+    private final long timeToLiveMillis;
+    private final int maximumSessions;
+    private final Consumer<QuestionCreationProgress> evictionListener;
+
+    /**
+     * @param timeToLiveMillis how long a session may be idle before it is evicted
+     * @param maximumSessions how many sessions may be open at the same time
+     * @param evictionListener called for every session evicted because it was idle for too long
+     */
+    public QuestionCreationSessionStore(long timeToLiveMillis, int maximumSessions, Consumer<QuestionCreationProgress> evictionListener) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maximumSessions = maximumSessions;
+        this.evictionListener = evictionListener;
+        ScheduledExecutorService evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "question-creation-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepInterval = Math.max(1000, Math.min(timeToLiveMillis / 2, TimeUnit.MINUTES.toMillis(1)));
+        evictionExecutor.scheduleWithFixedDelay(this::evictIdleSessions, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the session of that user in that channel or null if there is none or it expired
+     */
+    public QuestionCreationProgress get(long channelId, long userId) {
+        if (!openSessionsPerChannel.containsKey(channelId)) {
+            return null;
+        }
+        QuestionCreationProgress progress = sessions.get(new SessionKey(channelId, userId));
+        if (progress == null) {
+            return null;
+        }
+        if (isExpired(progress, System.currentTimeMillis())) {
+            evict(progress);
+            return null;
+        }
+        progress.touch();
+        return progress;
+    }
+
+    /**
+     * Opens a session, replacing any session the user already had in that channel.
+     * @return false if the maximum number of sessions is reached and none could be evicted
+     */
+    public boolean put(QuestionCreationProgress progress) {
+        if (sessions.size() >= maximumSessions) {
+            evictIdleSessions();
+            if (sessions.size() >= maximumSessions) {
+                return false;
+            }
+        }
+        QuestionCreationProgress replaced = sessions.put(keyOf(progress), progress);
+        if (replaced == null) {
+            openSessionsPerChannel.merge(progress.getChannelId(), 1, Integer::sum);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the session of that user in that channel if there is one
+     */
+    public void remove(long channelId, long userId) {
+        QuestionCreationProgress progress = sessions.get(new SessionKey(channelId, userId));
+        if (progress != null) {
+            remove(progress);
+        }
+    }
+
+    /**
+     * @return true if the session was still open and is now closed
+     */
+    public boolean remove(QuestionCreationProgress progress) {
+        if (!sessions.remove(keyOf(progress), progress)) {
+            return false;
+        }
+        openSessionsPerChannel.computeIfPresent(progress.getChannelId(), (channelId, count) -> count == 1 ? null : count - 1);
+        return true;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (QuestionCreationProgress progress : sessions.values()) {
+            if (isExpired(progress, now)) {
+                evict(progress);
+            }
+        }
+    }
+
+    private void evict(QuestionCreationProgress progress) {
+        if (!remove(progress)) {
+            return;
+        }
+        try {
+            evictionListener.accept(progress);
+        } catch (Exception e) {
+            logger.warn("Could not inform about evicted question creation", e);
+        }
+    }
+
+    private boolean isExpired(QuestionCreationProgress progress, long now) {
+        return now - progress.getLastActivity() > timeToLiveMillis;
+    }
+
+    private static SessionKey keyOf(QuestionCreationProgress progress) {
+        return new SessionKey(progress.getChannelId(), progress.getUserId());
+    }
+
+    /**
+     * A session is identified by the channel and the user creating the question
+     */
+    private static final class SessionKey {
+        private final long channelId;
+        private final long userId;
+
+        private SessionKey(long channelId, long userId) {
+            this.channelId = channelId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SessionKey)) return false;
+            SessionKey that = (SessionKey) o;
+            return channelId == that.channelId && userId == that.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(channelId) * 31 + Long.hashCode(userId);
+        }
+    }
+}
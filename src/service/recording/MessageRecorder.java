@@ -0,0 +1,153 @@
+package service.recording;
+
+import com.google.gson.Gson;
+import net.dv8tion.jda.api.entities.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.command.CommandDispatcher;
+import service.state.ShardAssignment;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the messages the bot receives to a file, one json {@link RecordedMessage} per line, so the load can be replayed offline later.
+ * <p>
+ * Nothing in a recording identifies a user: ids are scrambled with a key that exists only while recording, so the same user keeps
+ * the same id within a recording but cannot be traced back. In text every letter becomes x and every digit 0,
+ * only the name of a command, the number given to !answer and the words the question creation expects at the start of a message are kept,
+ * so messages keep their shape and length and are handled the same way when replayed.
+ * <p>
+ * Lines are buffered and written out every second and when the process shuts down.
+ */
+public class MessageRecorder implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MessageRecorder.class);
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    /**
+     * Words kept at the start of a message that is no command, the question creation acts on them
+     */
+    private static final Set<String> KEPT_WORDS = Set.of("right", "wrong", "!save");
+
+    private final Gson gson;
+    private final BufferedWriter writer;
+    private final long idKey = new SecureRandom().nextLong();
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "message-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean closed;
+
+    public MessageRecorder(Path file, Gson gson) throws IOException {
+        this.gson = gson;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeSafely, "message-recorder-shutdown"));
+    }
+
+    /**
+     * Adds the message to the recording. Failing to write is logged but never keeps the message from being handled.
+     */
+    public void record(Message message) {
+        long offsetMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long guildId = ShardAssignment.guildIdOf(message.getChannel());
+        String line = gson.toJson(new RecordedMessage(offsetMillis,
+                guildId == 0 ? 0 : anonymize(guildId),
+                anonymize(message.getChannel().getIdLong()),
+                anonymize(message.getAuthor().getIdLong()),
+                anonymize(message.getContentRaw())));
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                writer.write(line);
+                writer.newLine();
+            } catch (IOException e) {
+                logger.warn("Could not record message", e);
+            }
+        }
+    }
+
+    /**
+     * Scrambles the bits of the id. Different ids stay different, so channels and users can still be told apart.
+     */
+    private long anonymize(long id) {
+        long scrambled = id ^ idKey;
+        scrambled = (scrambled ^ (scrambled >>> 33)) * 0xff51afd7ed558ccdL;
+        scrambled = (scrambled ^ (scrambled >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        scrambled ^= scrambled >>> 33;
+        // 0 means "no guild" in a recording
+        return scrambled == 0 ? 1 : scrambled;
+    }
+
+    static String anonymize(String content) {
+        String command = CommandDispatcher.getInstance().findCommandName(content);
+        int keptUntil = command == null ? keptWordLength(content) : command.length();
+        boolean keepDigits = "!answer".equals(command);
+        StringBuilder anonymized = new StringBuilder(content.length());
+        anonymized.append(content, 0, keptUntil);
+        for (int i = keptUntil; i < content.length(); i++) {
+            char character = content.charAt(i);
+            if (Character.isLetter(character)) {
+                anonymized.append('x');
+            } else if (Character.isDigit(character)) {
+                anonymized.append(keepDigits ? character : '0');
+            } else {
+                anonymized.append(character);
+            }
+        }
+        return anonymized.toString();
+    }
+
+    /**
+     * @return the length of the first word if it is kept, 0 otherwise
+     */
+    private static int keptWordLength(String content) {
+        int end = content.indexOf(' ');
+        String firstWord = end < 0 ? content : content.substring(0, end);
+        return KEPT_WORDS.contains(firstWord.toLowerCase(Locale.ROOT)) ? firstWord.length() : 0;
+    }
+
+    private void flushSafely() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                logger.warn("Could not write recorded messages", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushExecutor.shutdown();
+        writer.close();
+    }
+
+    private void closeSafely() {
+        try {
+            close();
+        } catch (IOException e) {
+            logger.warn("Could not close the message recording", e);
+        }
+    }
+}
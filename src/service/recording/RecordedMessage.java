@@ -0,0 +1,46 @@
+package service.recording;
+
+/**
+ * A received message as written to a recording: when it arrived and where, with anonymized ids and text.
+ */
+public class RecordedMessage {
+    /**
+     * Milliseconds since the recording started
+     */
+    private final long offsetMillis;
+    /**
+     * 0 for private channels
+     */
+    private final long guildId;
+    private final long channelId;
+    private final long authorId;
+    private final String content;
+
+    public RecordedMessage(long offsetMillis, long guildId, long channelId, long authorId, String content) {
+        this.offsetMillis = offsetMillis;
+        this.guildId = guildId;
+        this.channelId = channelId;
+        this.authorId = authorId;
+        this.content = content;
+    }
+
+    public long getOffsetMillis() {
+        return offsetMillis;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getAuthorId() {
+        return authorId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
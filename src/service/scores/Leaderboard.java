@@ -0,0 +1,70 @@
+package service.scores;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The points of all users in one guild or across all guilds.
+ * Points are counted in a LongAdder per user, so users answering at the same time do not contend.
+ */
+public class Leaderboard {
+    private final Map<Long, UserScore> scores = new ConcurrentHashMap<>();
+    private final TopScores topScores;
+
+    /**
+     * @param size how many users are shown on the leaderboard
+     */
+    public Leaderboard(int size) {
+        this.topScores = new TopScores(size);
+    }
+
+    /**
+     * @param userName the name shown on the leaderboard, replaces the name known before
+     * @return the points of the user afterwards
+     */
+    public long add(long userId, String userName, long points) {
+        UserScore score = scores.computeIfAbsent(userId, id -> new UserScore());
+        score.userName = userName;
+        score.points.add(points);
+        long total = score.points.sum();
+        topScores.offer(userId, total);
+        return total;
+    }
+
+    /**
+     * @return the points of the user, 0 if the user has none
+     */
+    public long getPoints(long userId) {
+        UserScore score = scores.get(userId);
+        return score == null ? 0 : score.points.sum();
+    }
+
+    /**
+     * @return the users with the most points, most points first
+     */
+    public List<ScoreEntry> getTop() {
+        return topScores.get(userId -> {
+            UserScore score = scores.get(userId);
+            return score == null ? null : score.userName;
+        });
+    }
+
+    /**
+     * Calls the consumer with the points of every user
+     */
+    public void forEach(ScoreConsumer consumer) {
+        scores.forEach((userId, score) -> consumer.accept(userId, score.userName, score.points.sum()));
+    }
+
+    @FunctionalInterface
+    public interface ScoreConsumer {
+        void accept(long userId, String userName, long points);
+    }
+
+    private static final class UserScore {
+        private final LongAdder points = new LongAdder();
+        private volatile String userName;
+    }
+}
@@ -0,0 +1,28 @@
+package service.scores;
+
+/**
+ * A line of a leaderboard
+ */
+public class ScoreEntry {
+    private final long userId;
+    private final String userName;
+    private final long points;
+
+    public ScoreEntry(long userId, String userName, long points) {
+        this.userId = userId;
+        this.userName = userName;
+        this.points = points;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public long getPoints() {
+        return points;
+    }
+}
@@ -0,0 +1,38 @@
+package service.scores;
+
+/**
+ * The points of a user in a guild as written to the score files.
+ * In the snapshot the points are the total, in the journal they are the points gained since the last flush.
+ */
+public class ScoreRecord {
+    /**
+     * 0 for points gained outside of a guild, e.g. in direct messages
+     */
+    private final long guildId;
+    private final long userId;
+    private final String userName;
+    private final long points;
+
+    public ScoreRecord(long guildId, long userId, String userName, long points) {
+        this.guildId = guildId;
+        this.userId = userId;
+        this.userName = userName;
+        this.points = points;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public long getPoints() {
+        return points;
+    }
+}
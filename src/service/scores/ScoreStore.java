@@ -0,0 +1,149 @@
+package service.scores;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the scores on disk: a snapshot with the total points of every user and a journal the points gained since are appended to.
+ * Loading reads the snapshot and adds up the journal, compacting writes a new snapshot and starts an empty journal.
+ * <p>
+ * Journal lines carry the epoch they were written in and the snapshot the last epoch it contains.
+ * If the bot stops after a new snapshot was written but before the journal was deleted, the journal is not counted twice.
+ */
+public class ScoreStore {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreStore.class);
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final Path temporarySnapshotPath;
+    private final Gson gson;
+    /**
+     * The epoch points are appended in, the snapshot contains all earlier epochs
+     */
+    private long epoch = 1;
+
+    /**
+     * @param snapshotPath the snapshot file, the journal and temporary files are kept next to it
+     */
+    public ScoreStore(Path snapshotPath, Gson gson) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = Path.of(snapshotPath + ".journal");
+        this.temporarySnapshotPath = Path.of(snapshotPath + ".tmp");
+        this.gson = gson;
+    }
+
+    /**
+     * Reads the snapshot and then the journal. A journal line that cannot be parsed, like one torn by a crash, is skipped.
+     * @param consumer gets the totals of the snapshot followed by the points gained of the journal
+     */
+    public synchronized void load(Consumer<ScoreRecord> consumer) throws IOException {
+        long snapshotEpoch = 0;
+        if (Files.exists(snapshotPath)) {
+            try (JsonReader reader = new JsonReader(Files.newBufferedReader(snapshotPath, StandardCharsets.UTF_8))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals("epoch")) {
+                        snapshotEpoch = reader.nextLong();
+                    } else if (name.equals("scores")) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            consumer.accept(gson.fromJson(reader, ScoreRecord.class));
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+        }
+        epoch = snapshotEpoch + 1;
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        JournalEntry entry = gson.fromJson(line, JournalEntry.class);
+                        if (entry.epoch > snapshotEpoch) {
+                            consumer.accept(entry.record);
+                        }
+                    } catch (JsonParseException e) {
+                        logger.warn("Skipping unreadable score journal line: {}", line);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the points gained to the journal and forces them to disk
+     */
+    public synchronized void append(List<ScoreRecord> gainedPoints) throws IOException {
+        if (gainedPoints.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (ScoreRecord record : gainedPoints) {
+            lines.append(gson.toJson(new JournalEntry(epoch, record))).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given totals and deletes the journal. No points may be appended meanwhile.
+     */
+    public synchronized void compact(List<ScoreRecord> totals) throws IOException {
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(temporarySnapshotPath, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("epoch").value(epoch);
+            writer.name("scores").beginArray();
+            for (ScoreRecord record : totals) {
+                gson.toJson(record, ScoreRecord.class, writer);
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        try (FileChannel channel = FileChannel.open(temporarySnapshotPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporarySnapshotPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        epoch++;
+        Files.deleteIfExists(journalPath);
+    }
+
+    private static final class JournalEntry {
+        private final long epoch;
+        private final ScoreRecord record;
+
+        private JournalEntry(long epoch, ScoreRecord record) {
+            this.epoch = epoch;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package service.scores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * The users with the most points, kept up to date as points are added so reading the leaderboard never sorts all users.
+ * Points only ever grow, so a user can only enter the top by passing the lowest score in it.
+ * Scores below that are turned away without locking.
+ */
+class TopScores {
+    private final long[] userIds;
+    private final long[] points;
+    private int size;
+    /**
+     * The lowest score in the top once it is full, 0 before
+     */
+    private volatile long threshold;
+
+    /**
+     * @param capacity how many users are kept
+     */
+    TopScores(int capacity) {
+        this.userIds = new long[capacity];
+        this.points = new long[capacity];
+    }
+
+    /**
+     * @param userPoints the current points of the user, lower points than known before are ignored
+     */
+    void offer(long userId, long userPoints) {
+        if (userPoints < threshold || userIds.length == 0) {
+            return;
+        }
+        synchronized (this) {
+            int position = indexOf(userId);
+            if (position < 0) {
+                if (size < userIds.length) {
+                    position = size++;
+                } else if (userPoints > points[size - 1]) {
+                    position = size - 1;
+                } else {
+                    return;
+                }
+                userIds[position] = userId;
+                points[position] = userPoints;
+            } else if (userPoints > points[position]) {
+                points[position] = userPoints;
+            } else {
+                return;
+            }
+            // the entry only moved up, bubble it to its place
+            while (position > 0 && points[position - 1] < points[position]) {
+                swap(position - 1, position);
+                position--;
+            }
+            threshold = size == userIds.length ? points[size - 1] : 0;
+        }
+    }
+
+    private int indexOf(long userId) {
+        for (int i = 0; i < size; i++) {
+            if (userIds[i] == userId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void swap(int first, int second) {
+        long userId = userIds[first];
+        long userPoints = points[first];
+        userIds[first] = userIds[second];
+        points[first] = points[second];
+        userIds[second] = userId;
+        points[second] = userPoints;
+    }
+
+    /**
+     * @param nameOfUser looks up the name shown for a user
+     * @return the users with the most points, most points first
+     */
+    synchronized List<ScoreEntry> get(LongFunction<String> nameOfUser) {
+        List<ScoreEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new ScoreEntry(userIds[i], nameOfUser.apply(userIds[i]), points[i]));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,66 @@
+package service.search;
+
+import java.util.Arrays;
+
+/**
+ * The questions a term occurs in, ordered by question number, with a weight for how often it occurs in each.
+ * Appending is synchronized, reading is not: the size is published after the entries, so a reader reading the size first sees complete entries.
+ */
+final class PostingList {
+    private static final int MAXIMUM_WEIGHT = 255;
+
+    private volatile int[] questions = new int[2];
+    private volatile byte[] weights = new byte[2];
+    private volatile int size;
+
+    /**
+     * @param question must not be lower than the question added last, adding the same question again raises its weight
+     */
+    synchronized void add(int question, int weight) {
+        int currentSize = size;
+        if (currentSize > 0 && questions[currentSize - 1] == question) {
+            int combined = Math.min(MAXIMUM_WEIGHT, (weights[currentSize - 1] & 0xFF) + weight);
+            weights[currentSize - 1] = (byte) combined;
+            return;
+        }
+        if (currentSize == questions.length) {
+            int capacity = currentSize + (currentSize >> 1) + 1;
+            weights = Arrays.copyOf(weights, capacity);
+            questions = Arrays.copyOf(questions, capacity);
+        }
+        weights[currentSize] = (byte) Math.min(MAXIMUM_WEIGHT, weight);
+        questions[currentSize] = question;
+        size = currentSize + 1;
+    }
+
+    /**
+     * Appends all entries of the other list, whose questions must all be higher than the ones in this list
+     */
+    synchronized void addAll(PostingList other) {
+        int otherSize = other.size;
+        int currentSize = size;
+        int capacity = currentSize + otherSize;
+        if (capacity > questions.length) {
+            weights = Arrays.copyOf(weights, capacity);
+            questions = Arrays.copyOf(questions, capacity);
+        }
+        System.arraycopy(other.weights, 0, weights, currentSize, otherSize);
+        System.arraycopy(other.questions, 0, questions, currentSize, otherSize);
+        size = capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Only valid for positions below a size read before
+     */
+    int questionAt(int position) {
+        return questions[position];
+    }
+
+    int weightAt(int position) {
+        return weights[position] & 0xFF;
+    }
+}
@@ -0,0 +1,284 @@
+package service.search;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An inverted index from the words of question and answer texts to the numbers of the questions containing them.
+ * Questions have to be added in the order of their numbers. Searching needs no locking and can happen while questions are added.
+ * <p>
+ * A question matches a search if it contains every search term, either as a word or as the start of a word.
+ * Matches are ranked by how rare the terms are and how often they occur, words in the question text count double
+ * and exact words count more than words merely starting with a term.
+ */
+public class SearchIndex {
+    private static final int QUESTION_TEXT_WEIGHT = 2;
+    private static final int ANSWER_TEXT_WEIGHT = 1;
+    /**
+     * A term matches at most this many words by their start, so very short terms stay fast
+     */
+    private static final int MAXIMUM_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_MATCH_FACTOR = 0.7f;
+    /**
+     * Questions per part when building the index in parallel
+     */
+    private static final int BUILD_PART_SIZE = 16_384;
+
+    private final NavigableMap<String, PostingList> postings;
+    private volatile int questionCount;
+
+    private SearchIndex(SortedMap<String, PostingList> postings, int questionCount) {
+        this.postings = new ConcurrentSkipListMap<>(postings);
+        this.questionCount = questionCount;
+    }
+
+    /**
+     * Builds the index of the first questions, splitting them into parts that are indexed in parallel and merged in order
+     * @param questions looks up a question by its number
+     * @param count the number of questions to index
+     */
+    public static SearchIndex build(IntFunction<Question> questions, int count) {
+        int parts = (count + BUILD_PART_SIZE - 1) / BUILD_PART_SIZE;
+        List<Map<String, PostingList>> partIndexes = IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(part -> {
+                    Map<String, PostingList> partIndex = new HashMap<>();
+                    int end = Math.min(count, (part + 1) * BUILD_PART_SIZE);
+                    for (int i = part * BUILD_PART_SIZE; i < end; i++) {
+                        addTo(partIndex, i, questions.apply(i));
+                    }
+                    return partIndex;
+                })
+                .collect(Collectors.toList());
+        Map<String, PostingList> merged = partIndexes.isEmpty() ? new HashMap<>() : partIndexes.get(0);
+        for (Map<String, PostingList> partIndex : partIndexes.subList(Math.min(1, partIndexes.size()), partIndexes.size())) {
+            for (Map.Entry<String, PostingList> entry : partIndex.entrySet()) {
+                PostingList existing = merged.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) {
+                    existing.addAll(entry.getValue());
+                }
+            }
+        }
+        // a skip list built from a sorted map is built in linear time instead of inserting every term
+        return new SearchIndex(new TreeMap<>(merged), count);
+    }
+
+    /**
+     * @param number the number of the question, must be the number of questions indexed so far
+     */
+    public synchronized void add(int number, Question question) {
+        if (number != questionCount) {
+            throw new IllegalArgumentException("Expected question " + questionCount + " but got " + number);
+        }
+        addTo(postings, number, question);
+        questionCount = number + 1;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    private static void addTo(Map<String, PostingList> index, int number, Question question) {
+        Tokenizer.tokenize(question.getQuestion(), term -> index.computeIfAbsent(term, t -> new PostingList()).add(number, QUESTION_TEXT_WEIGHT));
+        for (Answer answer : question.getAnswers()) {
+            Tokenizer.tokenize(answer.getAnswer(), term -> index.computeIfAbsent(term, t -> new PostingList()).add(number, ANSWER_TEXT_WEIGHT));
+        }
+    }
+
+    /**
+     * @param query the search terms
+     * @param limit the maximum number of results
+     * @return the numbers of the questions matching all terms, best match first, empty if the query contains no terms
+     */
+    public int[] search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        Tokenizer.tokenize(query, term -> {
+            if (!terms.contains(term)) {
+                terms.add(term);
+            }
+        });
+        if (terms.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        int documents = Math.max(1, questionCount);
+        List<TermMatches> termMatches = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            TermMatches matches = match(term, documents);
+            if (matches.size == 0) {
+                return new int[0];
+            }
+            termMatches.add(matches);
+        }
+        termMatches.sort((first, second) -> Integer.compare(first.size, second.size));
+        return rankIntersection(termMatches, limit);
+    }
+
+    /**
+     * Collects the questions containing the term or a word starting with it, with their score for the term
+     */
+    private TermMatches match(String term, int documents) {
+        List<PostingList> lists = new ArrayList<>();
+        List<Float> factors = new ArrayList<>();
+        for (Map.Entry<String, PostingList> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            if (lists.size() == MAXIMUM_PREFIX_EXPANSIONS) {
+                break;
+            }
+            PostingList list = entry.getValue();
+            int listSize = list.size();
+            if (listSize == 0) {
+                continue;
+            }
+            float inverseDocumentFrequency = (float) Math.log(1 + (double) documents / listSize);
+            float exactness = entry.getKey().equals(term) ? 1 : PREFIX_MATCH_FACTOR;
+            lists.add(list);
+            factors.add(inverseDocumentFrequency * exactness);
+        }
+        float[] listFactors = new float[factors.size()];
+        for (int i = 0; i < listFactors.length; i++) {
+            listFactors[i] = factors.get(i);
+        }
+        return TermMatches.merge(lists, listFactors);
+    }
+
+    /**
+     * Walks the matches of the rarest term and looks the others up by binary search, keeping the best matches on the way
+     */
+    private static int[] rankIntersection(List<TermMatches> termMatches, int limit) {
+        TermMatches rarest = termMatches.get(0);
+        int[] positions = new int[termMatches.size()];
+        int[] bestQuestions = new int[limit];
+        float[] bestScores = new float[limit];
+        int found = 0;
+        candidates:
+        for (int i = 0; i < rarest.size; i++) {
+            int question = rarest.questions[i];
+            float score = rarest.scores[i];
+            for (int t = 1; t < termMatches.size(); t++) {
+                TermMatches other = termMatches.get(t);
+                int position = Arrays.binarySearch(other.questions, positions[t], other.size, question);
+                if (position < 0) {
+                    positions[t] = -position - 1;
+                    if (positions[t] >= other.size) {
+                        break candidates;
+                    }
+                    continue candidates;
+                }
+                positions[t] = position;
+                score += other.scores[position];
+            }
+            found = keepIfBetter(bestQuestions, bestScores, found, question, score);
+        }
+        int[] result = new int[found];
+        Integer[] order = new Integer[found];
+        for (int i = 0; i < found; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> bestScores[first] != bestScores[second]
+                ? Float.compare(bestScores[second], bestScores[first])
+                : Integer.compare(bestQuestions[first], bestQuestions[second]));
+        for (int i = 0; i < found; i++) {
+            result[i] = bestQuestions[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of kept matches afterwards
+     */
+    private static int keepIfBetter(int[] bestQuestions, float[] bestScores, int found, int question, float score) {
+        if (found < bestQuestions.length) {
+            bestQuestions[found] = question;
+            bestScores[found] = score;
+            return found + 1;
+        }
+        int worst = 0;
+        for (int i = 1; i < found; i++) {
+            if (bestScores[i] < bestScores[worst]) {
+                worst = i;
+            }
+        }
+        if (score > bestScores[worst]) {
+            bestQuestions[worst] = question;
+            bestScores[worst] = score;
+        }
+        return found;
+    }
+
+    /**
+     * The questions matching one term ordered by number, with the score of the term for each
+     */
+    private static final class TermMatches {
+        private final int[] questions;
+        private final float[] scores;
+        private final int size;
+
+        private TermMatches(int[] questions, float[] scores, int size) {
+            this.questions = questions;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        /**
+         * Merges the posting lists of all words matching the term, a question matching several words gets the best of their scores
+         */
+        private static TermMatches merge(List<PostingList> lists, float[] factors) {
+            int listCount = lists.size();
+            int[] sizes = new int[listCount];
+            int total = 0;
+            for (int l = 0; l < listCount; l++) {
+                sizes[l] = lists.get(l).size();
+                total += sizes[l];
+            }
+            int[] questions = new int[total];
+            float[] scores = new float[total];
+            if (listCount == 1) {
+                PostingList list = lists.get(0);
+                for (int i = 0; i < total; i++) {
+                    int weight = list.weightAt(i);
+                    questions[i] = list.questionAt(i);
+                    scores[i] = factors[0] * weight / (weight + 1.2f);
+                }
+                return new TermMatches(questions, scores, total);
+            }
+            int[] positions = new int[listCount];
+            int size = 0;
+            while (true) {
+                int lowest = Integer.MAX_VALUE;
+                for (int l = 0; l < listCount; l++) {
+                    if (positions[l] < sizes[l]) {
+                        lowest = Math.min(lowest, lists.get(l).questionAt(positions[l]));
+                    }
+                }
+                if (lowest == Integer.MAX_VALUE) {
+                    break;
+                }
+                float best = 0;
+                for (int l = 0; l < listCount; l++) {
+                    PostingList list = lists.get(l);
+                    if (positions[l] < sizes[l] && list.questionAt(positions[l]) == lowest) {
+                        int weight = list.weightAt(positions[l]);
+                        best = Math.max(best, factors[l] * weight / (weight + 1.2f));
+                        positions[l]++;
+                    }
+                }
+                questions[size] = lowest;
+                scores[size] = best;
+                size++;
+            }
+            return new TermMatches(questions, scores, size);
+        }
+    }
+}
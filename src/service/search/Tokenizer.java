@@ -0,0 +1,34 @@
+package service.search;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into lower case words made of letters and digits. Words shorter than two characters are dropped, they match too much to be useful.
+ */
+final class Tokenizer {
+    static final int MINIMUM_TOKEN_LENGTH = 2;
+
+    private Tokenizer() {
+
+    }
+
+    static void tokenize(String text, Consumer<String> tokenConsumer) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean partOfToken = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfToken && start < 0) {
+                start = i;
+            } else if (!partOfToken && start >= 0) {
+                if (i - start >= MINIMUM_TOKEN_LENGTH) {
+                    tokenConsumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package service.selection;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws indices with probabilities proportional to their weights in constant time, using Vose's alias method.
+ * Every index gets a column of equal height, filled partly by its own weight and topped up by the weight of one other index, its alias.
+ */
+class AliasTable {
+    private final float[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * @param weights positive weights, at least one
+     */
+    AliasTable(double[] weights) {
+        int size = weights.length;
+        probabilities = new float[size];
+        aliases = new int[size];
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = (float) scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // whatever is left over is 1 apart from rounding errors
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1;
+        }
+    }
+
+    int size() {
+        return probabilities.length;
+    }
+
+    int sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(probabilities.length);
+        return random.nextFloat() < probabilities[column] ? column : aliases[column];
+    }
+}
@@ -0,0 +1,55 @@
+package service.selection;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts right and wrong answers per question number. The counts are kept in fixed size chunks that are added as questions are added,
+ * so growing never copies counts and no update is lost while it happens.
+ */
+class AnswerStatistics {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Every entry holds the right answers in the upper and the wrong answers in the lower 32 bits
+     */
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+
+    void record(int questionIndex, boolean correct) {
+        AtomicLongArray chunk = chunkOf(questionIndex);
+        chunk.getAndAdd(questionIndex & (CHUNK_SIZE - 1), correct ? 1L << 32 : 1);
+    }
+
+    /**
+     * @return the share of wrong answers, smoothed so unplayed questions count as answered wrong half of the time
+     */
+    double getWrongAnswerRate(int questionIndex) {
+        AtomicLongArray[] current = chunks;
+        int chunkIndex = questionIndex >>> CHUNK_BITS;
+        long counts = chunkIndex < current.length ? current[chunkIndex].get(questionIndex & (CHUNK_SIZE - 1)) : 0;
+        long right = counts >>> 32;
+        long wrong = counts & 0xFFFFFFFFL;
+        return (wrong + 1d) / (right + wrong + 2d);
+    }
+
+    private AtomicLongArray chunkOf(int questionIndex) {
+        int chunkIndex = questionIndex >>> CHUNK_BITS;
+        AtomicLongArray[] current = chunks;
+        if (chunkIndex < current.length) {
+            return current[chunkIndex];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunkIndex >= current.length) {
+                AtomicLongArray[] grown = Arrays.copyOf(current, chunkIndex + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new AtomicLongArray(CHUNK_SIZE);
+                }
+                chunks = grown;
+                current = grown;
+            }
+            return current[chunkIndex];
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package service.selection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses the questions played in the channels. Nothing is shared between threads apart from the state of the channel itself,
+ * random numbers come from {@link java.util.concurrent.ThreadLocalRandom}.
+ */
+public class QuestionSelector {
+    /**
+     * How often a weighted draw is repeated if it hit the question the channel played last
+     */
+    private static final int REPEAT_REDRAWS = 3;
+    /**
+     * How often a weighted draw is repeated if it hit a question the caller's version of the bank does not have yet
+     */
+    private static final int SIZE_REDRAWS = 8;
+
+    private final SelectionMode mode;
+    private final long weightRefreshNanos;
+    private final Map<Long, ShuffledDeck> decks = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> lastWeightedQuestions = new ConcurrentHashMap<>();
+    private final AnswerStatistics statistics = new AnswerStatistics();
+    private final AtomicBoolean rebuildingWeights = new AtomicBoolean();
+    private volatile AliasTable weights;
+    private volatile long weightsBuiltAt;
+
+    /**
+     * @param weightRefreshMillis how long the weights are used before being computed again from the answers given since, in weighted mode
+     */
+    public QuestionSelector(SelectionMode mode, long weightRefreshMillis) {
+        this.mode = mode;
+        this.weightRefreshNanos = TimeUnit.MILLISECONDS.toNanos(weightRefreshMillis);
+    }
+
+    /**
+     * @param channelId the channel the question is played in
+     * @param bankSize the number of questions, must be positive
+     * @return the number of the question to play next
+     */
+    public int next(long channelId, int bankSize) {
+        if (mode == SelectionMode.WEIGHTED) {
+            return nextWeighted(channelId, bankSize);
+        }
+        return decks.computeIfAbsent(channelId, id -> new ShuffledDeck()).next(bankSize);
+    }
+
+    /**
+     * Counts an answer to the question, used to weight questions by how often they are answered wrong
+     */
+    public void recordAnswer(int questionIndex, boolean correct) {
+        if (mode == SelectionMode.WEIGHTED) {
+            statistics.record(questionIndex, correct);
+        }
+    }
+
+    private int nextWeighted(long channelId, int bankSize) {
+        AliasTable table = currentWeights(bankSize);
+        Integer last = lastWeightedQuestions.get(channelId);
+        int question = sample(table, bankSize);
+        for (int i = 0; i < REPEAT_REDRAWS && last != null && question == last && bankSize > 1; i++) {
+            question = sample(table, bankSize);
+        }
+        lastWeightedQuestions.put(channelId, question);
+        return question;
+    }
+
+    /**
+     * Draws a question of the caller's version of the bank. The table may belong to another version while a rebuild is running:
+     * a smaller one never draws the newest questions, a larger one is redrawn and finally replaced by a uniform draw.
+     */
+    private static int sample(AliasTable table, int bankSize) {
+        if (table.size() <= bankSize) {
+            return table.sample();
+        }
+        for (int i = 0; i < SIZE_REDRAWS; i++) {
+            int question = table.sample();
+            if (question < bankSize) {
+                return question;
+            }
+        }
+        return ThreadLocalRandom.current().nextInt(bankSize);
+    }
+
+    /**
+     * Rebuilds the table if questions were added or it is older than the refresh interval.
+     * Only one thread rebuilds at a time, the others keep drawing from the old table meanwhile, which can be of another size than their bank.
+     */
+    private AliasTable currentWeights(int bankSize) {
+        AliasTable table = weights;
+        boolean stale = table == null || table.size() != bankSize || System.nanoTime() - weightsBuiltAt > weightRefreshNanos;
+        if (stale && rebuildingWeights.compareAndSet(false, true)) {
+            try {
+                double[] questionWeights = new double[bankSize];
+                for (int i = 0; i < bankSize; i++) {
+                    questionWeights[i] = statistics.getWrongAnswerRate(i);
+                }
+                table = new AliasTable(questionWeights);
+                weights = table;
+                weightsBuiltAt = System.nanoTime();
+            } finally {
+                rebuildingWeights.set(false);
+            }
+        }
+        while (table == null) {
+            // the very first table is still being built by another thread
+            Thread.onSpinWait();
+            table = weights;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,15 @@
+package service.selection;
+
+/**
+ * How the next question played in a channel is chosen
+ */
+public enum SelectionMode {
+    /**
+     * Every channel works through its own shuffled deck of all questions, no question is repeated before the deck is used up
+     */
+    DECK,
+    /**
+     * Questions are drawn at random, those that are answered wrong more often are drawn more often
+     */
+    WEIGHTED
+}
@@ -0,0 +1,57 @@
+package service.selection;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A random order of the numbers below the size of the deck, handed out one after another.
+ * Instead of keeping a shuffled list, the order is a keyed permutation computed on the fly, so a deck takes the same few bytes for any number of questions.
+ * Once the deck is used up, a new one is started with the current number of questions and a new key.
+ * Questions added meanwhile join with the next deck.
+ */
+class ShuffledDeck {
+    private long key;
+    private int size;
+    private int position;
+    /**
+     * The permutation works on the smallest power of two holding the size, this is that power minus one
+     */
+    private long mask;
+    private int shift;
+
+    /**
+     * @param bankSize the number of questions, used when a new deck is started. A deck larger than it is started anew, it would hand out missing questions.
+     * @return the next number of the deck, below the bank size
+     */
+    synchronized int next(int bankSize) {
+        if (position >= size || bankSize < size) {
+            shuffle(bankSize);
+        }
+        long number = position++;
+        do {
+            number = permute(number);
+        } while (number >= size);
+        return (int) number;
+    }
+
+    private void shuffle(int bankSize) {
+        size = bankSize;
+        position = 0;
+        key = ThreadLocalRandom.current().nextLong();
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, bankSize - 1));
+        mask = (1L << bits) - 1;
+        shift = Math.max(1, bits / 2);
+    }
+
+    /**
+     * A bijection on the numbers up to the mask. Multiplying by an odd number, adding and xor-shifting right are each reversible modulo a power of two.
+     * Numbers mapped outside the deck are mapped again until they land inside it, which keeps it a bijection on the deck.
+     */
+    private long permute(long number) {
+        number = (number * (key | 1)) & mask;
+        number ^= number >>> shift;
+        number = (number + (key >>> 20)) & mask;
+        number = (number * (Long.rotateLeft(key, 29) | 1)) & mask;
+        number ^= number >>> shift;
+        return number;
+    }
+}
@@ -0,0 +1,18 @@
+package service.state;
+
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Finds the channel of a stored game or question creation again after a restart.
+ * Direct message channels are not cached after a restart, they have to be opened with the user again.
+ */
+public interface ChannelResolver {
+    /**
+     * @param userId the user of a direct message channel, 0 for guild channels or if the user is not known
+     * @return completes with the channel or with null if it does not exist anymore.
+     * Fails if the channel could not be looked up right now, the state should be kept then.
+     */
+    CompletableFuture<MessageChannel> resolve(long channelId, long userId);
+}
@@ -0,0 +1,63 @@
+package service.state;
+
+import dataObjects.Question;
+
+/**
+ * What is needed to continue creating a question after a restart
+ */
+public class CreationSessionState {
+    private final long channelId;
+    /**
+     * 0 for sessions outside of a guild
+     */
+    private final long guildId;
+    private final long userId;
+    private final String userName;
+    /**
+     * The name of the QuestionCreationProgress.State
+     */
+    private final String state;
+    private final Question question;
+    /**
+     * When the user last continued the creation, in milliseconds since the epoch
+     */
+    private final long lastActivity;
+
+    public CreationSessionState(long channelId, long guildId, long userId, String userName, String state, Question question, long lastActivity) {
+        this.channelId = channelId;
+        this.guildId = guildId;
+        this.userId = userId;
+        this.userName = userName;
+        this.state = state;
+        this.question = question;
+        this.lastActivity = lastActivity;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public Question getQuestion() {
+        return question;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+}
@@ -0,0 +1,109 @@
+package service.state;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps every game and question creation in a small json file of its own inside a directory.
+ * Files are written to a temporary file first and then moved into place, so a reader never sees half an entry.
+ * Several shard processes on one machine can share the directory since they never write the same entries.
+ * Nothing is forced to disk, a crash of the machine may lose the latest changes.
+ */
+public class FileStateStore implements StateStore {
+    private static final Logger logger = LoggerFactory.getLogger(FileStateStore.class);
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private final Path gamesDirectory;
+    private final Path creationSessionsDirectory;
+    private final Gson gson;
+
+    public FileStateStore(Path directory, Gson gson) throws IOException {
+        this.gamesDirectory = Files.createDirectories(directory.resolve("games"));
+        this.creationSessionsDirectory = Files.createDirectories(directory.resolve("creations"));
+        this.gson = gson;
+    }
+
+    @Override
+    public void putGame(GameState game) {
+        write(gamesDirectory, Long.toString(game.getChannelId()), gson.toJson(game));
+    }
+
+    @Override
+    public void removeGame(long channelId) {
+        delete(gamesDirectory, Long.toString(channelId));
+    }
+
+    @Override
+    public List<GameState> loadGames() {
+        return readAll(gamesDirectory, GameState.class);
+    }
+
+    @Override
+    public void putCreationSession(CreationSessionState session) {
+        write(creationSessionsDirectory, session.getChannelId() + "-" + session.getUserId(), gson.toJson(session));
+    }
+
+    @Override
+    public void removeCreationSession(long channelId, long userId) {
+        delete(creationSessionsDirectory, channelId + "-" + userId);
+    }
+
+    @Override
+    public List<CreationSessionState> loadCreationSessions() {
+        return readAll(creationSessionsDirectory, CreationSessionState.class);
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    private void write(Path directory, String name, String json) {
+        try {
+            Path temporaryFile = Files.createTempFile(directory, name, ".tmp");
+            Files.writeString(temporaryFile, json, StandardCharsets.UTF_8);
+            Files.move(temporaryFile, directory.resolve(name + ENTRY_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store " + name, e);
+        }
+    }
+
+    private void delete(Path directory, String name) {
+        try {
+            Files.deleteIfExists(directory.resolve(name + ENTRY_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + name, e);
+        }
+    }
+
+    /**
+     * Entries that cannot be read are skipped, temporary files of writes that did not finish are ignored
+     */
+    private <T> List<T> readAll(Path directory, Class<T> type) {
+        List<T> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    entries.add(gson.fromJson(Files.readString(file, StandardCharsets.UTF_8), type));
+                } catch (IOException | JsonParseException e) {
+                    logger.warn("Skipping unreadable state file {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list " + directory, e);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,58 @@
+package service.state;
+
+import dataObjects.Question;
+
+/**
+ * What is needed to continue a question being played after a restart
+ */
+public class GameState {
+    private final long channelId;
+    /**
+     * 0 for games outside of a guild
+     */
+    private final long guildId;
+    /**
+     * The user a game in direct messages is played with, 0 for games in a guild.
+     * Direct message channels have to be opened again through the user after a restart.
+     */
+    private final long userId;
+    private final int questionIndex;
+    private final Question question;
+    /**
+     * When the round ends in milliseconds since the epoch, 0 if it is not timed
+     */
+    private final long roundEndsAt;
+
+    public GameState(long channelId, long guildId, long userId, int questionIndex, Question question, long roundEndsAt) {
+        this.channelId = channelId;
+        this.guildId = guildId;
+        this.userId = userId;
+        this.questionIndex = questionIndex;
+        this.question = question;
+        this.roundEndsAt = roundEndsAt;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public int getQuestionIndex() {
+        return questionIndex;
+    }
+
+    public Question getQuestion() {
+        return question;
+    }
+
+    public long getRoundEndsAt() {
+        return roundEndsAt;
+    }
+}
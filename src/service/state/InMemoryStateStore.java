@@ -0,0 +1,53 @@
+package service.state;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the state in maps, it is lost when the process stops. Enough for a single process and for trying things out.
+ */
+public class InMemoryStateStore implements StateStore {
+    private final Map<Long, GameState> games = new ConcurrentHashMap<>();
+    private final Map<String, CreationSessionState> creationSessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void putGame(GameState game) {
+        games.put(game.getChannelId(), game);
+    }
+
+    @Override
+    public void removeGame(long channelId) {
+        games.remove(channelId);
+    }
+
+    @Override
+    public List<GameState> loadGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    @Override
+    public void putCreationSession(CreationSessionState session) {
+        creationSessions.put(key(session.getChannelId(), session.getUserId()), session);
+    }
+
+    @Override
+    public void removeCreationSession(long channelId, long userId) {
+        creationSessions.remove(key(channelId, userId));
+    }
+
+    @Override
+    public List<CreationSessionState> loadCreationSessions() {
+        return new ArrayList<>(creationSessions.values());
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    private static String key(long channelId, long userId) {
+        return channelId + "-" + userId;
+    }
+}
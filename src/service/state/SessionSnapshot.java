@@ -0,0 +1,25 @@
+package service.state;
+
+import java.util.List;
+
+/**
+ * The games and question creations of one point in time, as written to a snapshot file.
+ * When it was taken is part of the file name.
+ */
+public class SessionSnapshot {
+    private final List<GameState> games;
+    private final List<CreationSessionState> creationSessions;
+
+    public SessionSnapshot(List<GameState> games, List<CreationSessionState> creationSessions) {
+        this.games = games;
+        this.creationSessions = creationSessions;
+    }
+
+    public List<GameState> getGames() {
+        return games;
+    }
+
+    public List<CreationSessionState> getCreationSessions() {
+        return creationSessions;
+    }
+}
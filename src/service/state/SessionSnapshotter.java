@@ -0,0 +1,218 @@
+package service.state;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the content of a state store to gzipped snapshot files on an interval, so games and question creations survive a restart
+ * even if the store itself only keeps them in memory.
+ * <p>
+ * Taking a snapshot never blocks message handling: the store only ever replaces whole state objects and never changes them,
+ * so copying its entries gives a consistent version of every game and question creation without any lock.
+ * Snapshots are written to a temporary file, forced to disk and then moved into place, so a crash leaves either the old or the new snapshot.
+ * Only the newest snapshots are kept, older ones are deleted after a new one was written.
+ * <p>
+ * Snapshots only contain the games and question creations of the guilds of this shard, a store shared by several shards holds the others too.
+ */
+public class SessionSnapshotter {
+    private static final Logger logger = LoggerFactory.getLogger(SessionSnapshotter.class);
+    private static final String FILE_PREFIX = "sessions-";
+    private static final String FILE_SUFFIX = ".json.gz";
+
+    private final StateStore stateStore;
+    private final ShardAssignment shardAssignment;
+    private final Path directory;
+    private final Gson gson;
+    private final int retention;
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-snapshotter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The json of the last snapshot written, an unchanged state is not written again
+     */
+    private String lastSnapshotJson;
+
+    /**
+     * @param retention how many snapshots are kept, at least 1
+     */
+    public SessionSnapshotter(StateStore stateStore, ShardAssignment shardAssignment, Path directory, Gson gson, int retention) throws IOException {
+        if (retention < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be kept, got " + retention);
+        }
+        this.stateStore = stateStore;
+        this.shardAssignment = shardAssignment;
+        this.directory = Files.createDirectories(directory);
+        this.gson = gson;
+        this.retention = retention;
+        // left behind by snapshots that were being written when the process died
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*.tmp")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot every interval and a last one when the process shuts down
+     */
+    public void start(long intervalMillis) {
+        snapshotExecutor.scheduleWithFixedDelay(this::writeSnapshotSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::writeSnapshotSafely, "session-snapshotter-shutdown"));
+    }
+
+    private void writeSnapshotSafely() {
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not write a session snapshot, retrying with the next one", e);
+        }
+    }
+
+    /**
+     * Writes the current content of the store to a new snapshot file, unless nothing changed since the last one
+     */
+    public synchronized void writeSnapshot() throws IOException {
+        long createdAt = System.currentTimeMillis();
+        List<GameState> games = new ArrayList<>();
+        for (GameState game : stateStore.loadGames()) {
+            if (shardAssignment.ownsGuild(game.getGuildId())) {
+                games.add(game);
+            }
+        }
+        List<CreationSessionState> creationSessions = new ArrayList<>();
+        for (CreationSessionState session : stateStore.loadCreationSessions()) {
+            if (shardAssignment.ownsGuild(session.getGuildId())) {
+                creationSessions.add(session);
+            }
+        }
+        String json = gson.toJson(new SessionSnapshot(games, creationSessions));
+        if (json.equals(lastSnapshotJson)) {
+            return;
+        }
+        Path temporaryFile = directory.resolve(FILE_PREFIX + createdAt + ".tmp");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(temporaryFile))) {
+            output.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporaryFile, directory.resolve(FILE_PREFIX + createdAt + FILE_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastSnapshotJson = json;
+        logger.debug("Wrote session snapshot with {} games and {} question creations", games.size(), creationSessions.size());
+        deleteOldSnapshots();
+    }
+
+    private void deleteOldSnapshots() throws IOException {
+        List<Long> snapshots = listSnapshots();
+        for (int i = retention; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshotFile(snapshots.get(i)));
+        }
+    }
+
+    /**
+     * Puts the games and question creations of the newest readable snapshot into the store, unless the store already has them.
+     * Snapshots that cannot be read are skipped in favour of the next older one.
+     * Nothing is restored into a durable store: it already holds everything the snapshot does, and games that ended after the snapshot
+     * was taken would come back.
+     * @return the snapshot restored or null if there is none
+     */
+    public synchronized SessionSnapshot restoreLatest() throws IOException {
+        if (stateStore.isDurable()) {
+            logger.info("The state store keeps its state over restarts, session snapshots are not restored");
+            return null;
+        }
+        for (long createdAt : listSnapshots()) {
+            SessionSnapshot snapshot;
+            try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(snapshotFile(createdAt))), StandardCharsets.UTF_8)) {
+                snapshot = gson.fromJson(reader, SessionSnapshot.class);
+            } catch (IOException | JsonParseException e) {
+                logger.warn("Skipping unreadable session snapshot {}", snapshotFile(createdAt), e);
+                continue;
+            }
+            if (snapshot == null || snapshot.getGames() == null || snapshot.getCreationSessions() == null) {
+                logger.warn("Skipping incomplete session snapshot {}", snapshotFile(createdAt));
+                continue;
+            }
+            restore(snapshot, createdAt);
+            return snapshot;
+        }
+        return null;
+    }
+
+    private void restore(SessionSnapshot snapshot, long createdAt) {
+        Set<Long> storedGames = new HashSet<>();
+        for (GameState game : stateStore.loadGames()) {
+            storedGames.add(game.getChannelId());
+        }
+        int restoredGames = 0;
+        // a snapshot written before the shard count changed may hold guilds of other shards
+        for (GameState game : snapshot.getGames()) {
+            if (shardAssignment.ownsGuild(game.getGuildId()) && !storedGames.contains(game.getChannelId())) {
+                stateStore.putGame(game);
+                restoredGames++;
+            }
+        }
+        Set<String> storedCreationSessions = new HashSet<>();
+        for (CreationSessionState session : stateStore.loadCreationSessions()) {
+            storedCreationSessions.add(session.getChannelId() + "-" + session.getUserId());
+        }
+        int restoredCreationSessions = 0;
+        for (CreationSessionState session : snapshot.getCreationSessions()) {
+            if (shardAssignment.ownsGuild(session.getGuildId()) && !storedCreationSessions.contains(session.getChannelId() + "-" + session.getUserId())) {
+                stateStore.putCreationSession(session);
+                restoredCreationSessions++;
+            }
+        }
+        logger.info("Restored session snapshot from {} with {} games and {} question creations",
+                Instant.ofEpochMilli(createdAt), restoredGames, restoredCreationSessions);
+    }
+
+    /**
+     * @return the creation times of the snapshot files, newest first
+     */
+    private List<Long> listSnapshots() throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    snapshots.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file {} in the snapshot directory", file);
+                }
+            }
+        }
+        snapshots.sort((first, second) -> Long.compare(second, first));
+        return snapshots;
+    }
+
+    private Path snapshotFile(long createdAt) {
+        return directory.resolve(FILE_PREFIX + createdAt + FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,61 @@
+package service.state;
+
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.PrivateChannel;
+
+/**
+ * Which guilds the shard of this process is responsible for. Discord assigns guilds to shards by their id,
+ * direct messages always go to shard 0.
+ */
+public class ShardAssignment {
+    private final int shardId;
+    private final int shardTotal;
+
+    public ShardAssignment(int shardId, int shardTotal) {
+        if (shardTotal < 1 || shardId < 0 || shardId >= shardTotal) {
+            throw new IllegalArgumentException(String.format("Shard %d of %d does not exist", shardId, shardTotal));
+        }
+        this.shardId = shardId;
+        this.shardTotal = shardTotal;
+    }
+
+    public int getShardId() {
+        return shardId;
+    }
+
+    public int getShardTotal() {
+        return shardTotal;
+    }
+
+    /**
+     * @param guildId the id of the guild, 0 for direct messages
+     * @return true if events of the guild are sent to this shard
+     */
+    public boolean ownsGuild(long guildId) {
+        if (guildId == 0) {
+            return shardId == 0;
+        }
+        return (guildId >>> 22) % shardTotal == shardId;
+    }
+
+    /**
+     * @return the id of the guild the channel belongs to, 0 for direct messages
+     */
+    public static long guildIdOf(MessageChannel channel) {
+        if (channel instanceof GuildChannel) {
+            return ((GuildChannel) channel).getGuild().getIdLong();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the id of the user a direct message channel is with, 0 for guild channels
+     */
+    public static long privateUserIdOf(MessageChannel channel) {
+        if (channel instanceof PrivateChannel) {
+            return ((PrivateChannel) channel).getUser().getIdLong();
+        }
+        return 0;
+    }
+}
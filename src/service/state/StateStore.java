@@ -0,0 +1,42 @@
+package service.state;
+
+import java.util.List;
+
+/**
+ * Keeps the state of running games and question creations outside of the services, so a shard can be restarted
+ * or its guilds moved to another process without losing them. Every channel belongs to exactly one shard,
+ * so shards sharing a store never write the same entries.
+ * <p>
+ * Implementations must be thread safe. Writes happen on the message handling threads, so they should be quick.
+ */
+public interface StateStore {
+    /**
+     * Stores the game, replacing the one stored for the channel before
+     */
+    void putGame(GameState game);
+
+    void removeGame(long channelId);
+
+    /**
+     * @return all stored games, of all shards
+     */
+    List<GameState> loadGames();
+
+    /**
+     * Stores the session, replacing the one stored for the channel and user before
+     */
+    void putCreationSession(CreationSessionState session);
+
+    void removeCreationSession(long channelId, long userId);
+
+    /**
+     * @return all stored question creations, of all shards
+     */
+    List<CreationSessionState> loadCreationSessions();
+
+    /**
+     * @return true if the store keeps its content over a restart of the process itself.
+     * Such a store is always newer than a session snapshot, which must not be restored into it.
+     */
+    boolean isDurable();
+}
@@ -0,0 +1,44 @@
+package service.state;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Holds the state store all services use, chosen with bot.state.store: MEMORY (the default) or FILE.
+ * The file store keeps its files in bot.state.directory, "state" by default.
+ */
+public class StateStores {
+    private static final Logger logger = LoggerFactory.getLogger(StateStores.class);
+    private static final String STORE = System.getProperty("bot.state.store", "MEMORY");
+    private static final Path DIRECTORY = Path.of(System.getProperty("bot.state.directory", "state"));
+
+    private static final StateStore instance = create();
+
+    public static StateStore getInstance() {
+        return instance;
+    }
+
+    private StateStores() {
+
+    }
+
+    private static StateStore create() {
+        switch (STORE) {
+            case "MEMORY":
+                return new InMemoryStateStore();
+            case "FILE":
+                try {
+                    return new FileStateStore(DIRECTORY, new Gson());
+                } catch (IOException e) {
+                    logger.error("Could not open the state directory {}, state is only kept in memory", DIRECTORY, e);
+                    return new InMemoryStateStore();
+                }
+            default:
+                throw new IllegalArgumentException("Unknown state store " + STORE + ", use MEMORY or FILE");
+        }
+    }
+}
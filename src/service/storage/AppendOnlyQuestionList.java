@@ -0,0 +1,39 @@
+package service.storage;
+
+import dataObjects.Question;
+
+import java.util.Arrays;
+
+/**
+ * Questions kept in memory that can only be added to. Reading needs no locking, so questions can be played while others are still added.
+ */
+public class AppendOnlyQuestionList implements QuestionBank {
+    private volatile Question[] questions = new Question[16];
+    /**
+     * Written after the question and the array it is stored in, a reader seeing a size also sees everything below it
+     */
+    private volatile int size;
+
+    public synchronized void add(Question question) {
+        Question[] current = questions;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            questions = current;
+        }
+        current[size] = question;
+        size = size + 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Question get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return questions[index];
+    }
+}
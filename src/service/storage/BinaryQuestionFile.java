@@ -0,0 +1,75 @@
+package service.storage;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A binary question file mapped into memory, see {@link BinaryQuestionFileFormat}.
+ * Nothing but the mapping is kept on the heap, a question is decoded from the mapped file every time it is requested.
+ * Files larger than 2 GiB cannot be mapped. The mapping is released once the file is no longer referenced.
+ */
+public class BinaryQuestionFile implements QuestionBank {
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final long offsetTablePosition;
+
+    public BinaryQuestionFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Question file " + path + " is too large to be mapped");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < BinaryQuestionFileFormat.HEADER_SIZE || buffer.getInt(0) != BinaryQuestionFileFormat.MAGIC) {
+            throw new IOException(path + " is not a binary question file");
+        }
+        if (buffer.getInt(4) != BinaryQuestionFileFormat.VERSION) {
+            throw new IOException(path + " has an unsupported version " + buffer.getInt(4));
+        }
+        count = buffer.getInt(BinaryQuestionFileFormat.COUNT_POSITION);
+        offsetTablePosition = buffer.getLong(BinaryQuestionFileFormat.COUNT_POSITION + 4);
+        if (offsetTablePosition + (long) count * 8 > buffer.limit()) {
+            throw new IOException(path + " is incomplete");
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Question get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int position = (int) buffer.getLong((int) offsetTablePosition + index * 8);
+        int questionLength = buffer.getInt(position);
+        String questionText = readString(position + 4, questionLength);
+        position += 4 + questionLength;
+        int answerCount = buffer.getInt(position);
+        long correctAnswers = buffer.getLong(position + 4);
+        position += 4 + 8;
+        Answer[] answers = new Answer[answerCount];
+        for (int i = 0; i < answerCount; i++) {
+            int answerLength = buffer.getInt(position);
+            answers[i] = new Answer(readString(position + 4, answerLength), (correctAnswers & (1L << i)) != 0);
+            position += 4 + answerLength;
+        }
+        return new Question(questionText, List.of(answers));
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,25 @@
+package service.storage;
+
+/**
+ * Layout of the binary question file, all numbers are big endian:
+ * <pre>
+ * header:       int magic, int version, int question count, long offset of the offset table
+ * per question: int length, utf-8 question text, int answer count, long bit mask of correct answers,
+ *               per answer: int length, utf-8 answer text
+ * offset table: one long per question pointing at its record
+ * </pre>
+ */
+final class BinaryQuestionFileFormat {
+    static final int MAGIC = 0x51424E4B;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+    static final int COUNT_POSITION = 8;
+    /**
+     * Correctness of the answers is stored as bits of one long
+     */
+    static final int MAXIMUM_ANSWERS = Long.SIZE;
+
+    private BinaryQuestionFileFormat() {
+
+    }
+}
@@ -0,0 +1,88 @@
+package service.storage;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes questions one after another into the binary question file format, see {@link BinaryQuestionFileFormat}
+ */
+public class BinaryQuestionFileWriter implements Closeable {
+    private final Path path;
+    private final DataOutputStream outputStream;
+    private long position;
+    private long[] offsets = new long[1024];
+    private int count;
+
+    public BinaryQuestionFileWriter(Path path) throws IOException {
+        this.path = path;
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        outputStream.writeInt(BinaryQuestionFileFormat.MAGIC);
+        outputStream.writeInt(BinaryQuestionFileFormat.VERSION);
+        // count and offset table position are filled in when closing
+        outputStream.writeInt(0);
+        outputStream.writeLong(0);
+        position = BinaryQuestionFileFormat.HEADER_SIZE;
+    }
+
+    public void write(Question question) throws IOException {
+        List<Answer> answers = question.getAnswers();
+        if (answers.size() > BinaryQuestionFileFormat.MAXIMUM_ANSWERS) {
+            throw new IOException("A question may have at most " + BinaryQuestionFileFormat.MAXIMUM_ANSWERS + " answers to be stored in the binary format");
+        }
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = position;
+        writeString(question.getQuestion());
+        long correctAnswers = 0;
+        for (int i = 0; i < answers.size(); i++) {
+            if (answers.get(i).isCorrect()) {
+                correctAnswers |= 1L << i;
+            }
+        }
+        outputStream.writeInt(answers.size());
+        outputStream.writeLong(correctAnswers);
+        position += 4 + 8;
+        for (Answer answer : answers) {
+            writeString(answer.getAnswer());
+        }
+    }
+
+    private void writeString(String text) throws IOException {
+        byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+        position += 4 + bytes.length;
+    }
+
+    /**
+     * Writes the offset table, fills in the header and forces the file to disk
+     */
+    @Override
+    public void close() throws IOException {
+        long offsetTablePosition = position;
+        for (int i = 0; i < count; i++) {
+            outputStream.writeLong(offsets[i]);
+        }
+        outputStream.close();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4 + 8);
+            header.putInt(count).putLong(offsetTablePosition).flip();
+            channel.write(header, BinaryQuestionFileFormat.COUNT_POSITION);
+            channel.force(true);
+        }
+    }
+}
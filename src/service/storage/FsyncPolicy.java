@@ -0,0 +1,19 @@
+package service.storage;
+
+/**
+ * Decides when appended journal records are forced from the operating system's cache to the disk
+ */
+public enum FsyncPolicy {
+    /**
+     * Every record is forced to disk before the save is reported as done. Nothing is lost on a power failure.
+     */
+    ALWAYS,
+    /**
+     * Records are forced to disk periodically. A power failure loses at most the records of the last interval.
+     */
+    INTERVAL,
+    /**
+     * Records are never forced, the operating system decides when to write them. A crash of the bot loses nothing, a power failure might.
+     */
+    NEVER
+}
@@ -0,0 +1,135 @@
+package service.storage;
+
+import com.google.gson.Gson;
+import dataObjects.Question;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A json array of questions of which only the position of every question in the file is kept in memory.
+ * A question is read from the file and parsed every time it is requested.
+ */
+public class IndexedJsonQuestionFile implements QuestionBank, Closeable {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final Path path;
+    private final Gson gson;
+    private final FileChannel fileChannel;
+    private volatile long[] offsets = new long[1024];
+    private volatile int[] lengths = new int[1024];
+    /**
+     * Written after the offsets and lengths, a reader seeing a size also sees the positions of all questions below it
+     */
+    private volatile int size;
+
+    public IndexedJsonQuestionFile(Path path, Gson gson) throws IOException {
+        this.path = path;
+        this.gson = gson;
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Finds the position of every question in the file without parsing them.
+     * Questions become available through {@link #get(int)} as soon as their end is found.
+     * @return how many questions the file contains
+     */
+    public int scan(LoadingProgressListener progressListener) throws IOException {
+        long totalBytes = fileChannel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long position = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        long start = -1;
+        while (fileChannel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte current = buffer.get();
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (current == '\\') {
+                        escaped = true;
+                    } else if (current == '"') {
+                        inString = false;
+                    }
+                } else if (current == '"') {
+                    inString = true;
+                } else if (current == '{' || current == '[') {
+                    depth++;
+                    if (depth == 2) {
+                        start = position;
+                    }
+                } else if (current == '}' || current == ']') {
+                    if (depth == 2) {
+                        addEntry(start, (int) (position - start + 1));
+                        if (size % PROGRESS_INTERVAL == 0) {
+                            progressListener.progress(size, position, totalBytes);
+                        }
+                    }
+                    depth--;
+                }
+                position++;
+            }
+            buffer.clear();
+        }
+        if (depth != 0) {
+            throw new IOException("Question file " + path + " is not a complete json array");
+        }
+        progressListener.progress(size, totalBytes, totalBytes);
+        return size;
+    }
+
+    private void addEntry(long offset, int length) {
+        int index = size;
+        long[] currentOffsets = offsets;
+        int[] currentLengths = lengths;
+        if (index == currentOffsets.length) {
+            currentOffsets = Arrays.copyOf(currentOffsets, index * 2);
+            currentLengths = Arrays.copyOf(currentLengths, index * 2);
+        }
+        currentOffsets[index] = offset;
+        currentLengths[index] = length;
+        offsets = currentOffsets;
+        lengths = currentLengths;
+        size = index + 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Question get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(lengths[index]);
+        long position = offsets[index];
+        try {
+            while (buffer.hasRemaining()) {
+                if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Question file " + path + " ended unexpectedly");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read question " + index, e);
+        }
+        return gson.fromJson(new String(buffer.array(), StandardCharsets.UTF_8), Question.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,27 @@
+package service.storage;
+
+/**
+ * How the storage.json snapshot is loaded when the bot starts
+ */
+public enum LoadMode {
+    /**
+     * All questions are parsed one after another and kept in memory. Questions can be played while the rest is still loading.
+     */
+    STREAMING,
+    /**
+     * Only the position of every question in the file is kept in memory, a question is read from disk when it is played.
+     */
+    INDEXED,
+    /**
+     * The questions are kept in the compact binary file storage.bin which is mapped into memory, a question is decoded when it is played.
+     * An existing storage.json is converted on the first start.
+     */
+    BINARY;
+
+    /**
+     * @return true if questions are read from the snapshot file when requested instead of being kept on the heap
+     */
+    public boolean readsOnDemand() {
+        return this != STREAMING;
+    }
+}
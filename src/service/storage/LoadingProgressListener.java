@@ -0,0 +1,14 @@
+package service.storage;
+
+/**
+ * Gets informed about how far loading a question file has come
+ */
+@FunctionalInterface
+public interface LoadingProgressListener {
+    /**
+     * @param questions how many questions were loaded so far
+     * @param bytesRead how many bytes of the file were read so far
+     * @param totalBytes the size of the file
+     */
+    void progress(int questions, long bytesRead, long totalBytes);
+}
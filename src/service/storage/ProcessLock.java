@@ -0,0 +1,44 @@
+package service.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Makes sure files written by this process are not written by another process at the same time,
+ * e.g. by a second bot started in the same directory. The lock is held until the process exits.
+ */
+public class ProcessLock {
+    /**
+     * The locks taken, referenced so their channels are never closed
+     */
+    private static final List<FileLock> locks = new CopyOnWriteArrayList<>();
+
+    private ProcessLock() {
+
+    }
+
+    /**
+     * Locks the file exclusively, creating it if it does not exist
+     * @throws IOException if another process holds the lock already
+     */
+    public static void acquire(Path lockFile) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(lockFile + " is locked by another process, is another bot running with the same files?");
+        }
+        locks.add(lock);
+    }
+}
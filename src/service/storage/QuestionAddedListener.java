@@ -0,0 +1,15 @@
+package service.storage;
+
+import dataObjects.Question;
+
+/**
+ * Gets informed whenever a question is added to the stored questions
+ */
+@FunctionalInterface
+public interface QuestionAddedListener {
+    /**
+     * @param index the number the question got
+     * @param question the question added
+     */
+    void questionAdded(int index, Question question);
+}
@@ -0,0 +1,19 @@
+package service.storage;
+
+import dataObjects.Question;
+
+/**
+ * A read only, numbered collection of questions. Implementations may keep the questions in memory or read them on demand.
+ */
+public interface QuestionBank {
+    /**
+     * @return how many questions are available right now, this might grow while the bank is still being loaded
+     */
+    int size();
+
+    /**
+     * @param index a number between 0 and {@link #size()}
+     * @return the question with that number
+     */
+    Question get(int index);
+}
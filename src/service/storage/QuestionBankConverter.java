@@ -0,0 +1,79 @@
+package service.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dataObjects.Question;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts question banks between the storage.json format and the binary format.
+ * Questions are streamed, neither side is held in memory as a whole.
+ */
+public class QuestionBankConverter {
+    private QuestionBankConverter() {
+
+    }
+
+    /**
+     * @return how many questions were converted
+     */
+    public static int jsonToBinary(Path jsonFile, Path binaryFile, Gson gson) throws IOException {
+        try (BinaryQuestionFileWriter writer = new BinaryQuestionFileWriter(binaryFile)) {
+            return StreamingQuestionReader.read(jsonFile, gson, question -> {
+                try {
+                    writer.write(question);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, (questions, bytesRead, totalBytes) -> { });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return how many questions were converted
+     */
+    public static int binaryToJson(Path binaryFile, Path jsonFile, Gson gson) throws IOException {
+        BinaryQuestionFile binaryQuestionFile = new BinaryQuestionFile(binaryFile);
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(jsonFile, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (int i = 0; i < binaryQuestionFile.size(); i++) {
+                gson.toJson(binaryQuestionFile.get(i), Question.class, writer);
+            }
+            writer.endArray();
+        }
+        return binaryQuestionFile.size();
+    }
+
+    /**
+     * Usage: QuestionBankConverter to-binary storage.json storage.bin
+     * or QuestionBankConverter to-json storage.bin storage.json
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Usage: QuestionBankConverter (to-binary|to-json) <input file> <output file>");
+            return;
+        }
+        Path input = Path.of(args[1]);
+        Path output = Path.of(args[2]);
+        int converted;
+        switch (args[0]) {
+            case "to-binary":
+                converted = jsonToBinary(input, output, new Gson());
+                break;
+            case "to-json":
+                converted = binaryToJson(input, output, new Gson());
+                break;
+            default:
+                System.out.println("Unknown conversion " + args[0]);
+                return;
+        }
+        System.out.printf("Converted %d questions from %s to %s%n", converted, input, output);
+    }
+}
@@ -0,0 +1,36 @@
+package service.storage;
+
+import dataObjects.Question;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The first questions of a bank that only grows, as an unmodifiable list. The view keeps its size when questions are added to the bank,
+ * so it can be handed to readers as a version of the bank that never changes.
+ */
+public class QuestionBankView extends AbstractList<Question> implements RandomAccess {
+    private final QuestionBank bank;
+    private final int size;
+
+    /**
+     * @param size how many questions of the bank the view shows, at most the current size of the bank
+     */
+    public QuestionBankView(QuestionBank bank, int size) {
+        this.bank = bank;
+        this.size = size;
+    }
+
+    @Override
+    public Question get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return bank.get(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
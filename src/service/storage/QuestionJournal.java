@@ -0,0 +1,230 @@
+package service.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dataObjects.Question;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An append only file holding one line of json per saved question.
+ * Every record knows the position of its question in the question list, which makes replaying a journal twice harmless.
+ */
+public class QuestionJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionJournal.class);
+
+    /**
+     * Stands for an empty line while replaying, it is skipped
+     */
+    private static final JournalRecord BLANK_LINE = new JournalRecord(-1, null);
+
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final Gson gson;
+    private FileChannel fileChannel;
+    private boolean unforcedWrites;
+
+    /**
+     * Opens the journal for appending, creating it if it does not exist yet.
+     * The journal should have been replayed before so a torn last record is already cut off.
+     */
+    public QuestionJournal(Path path, FsyncPolicy fsyncPolicy, Gson gson) throws IOException {
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.gson = gson;
+        open();
+    }
+
+    private void open() throws IOException {
+        fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Appends the question to the journal. Depending on the fsync policy it is on disk when this returns.
+     * @param index the position of the question in the question list
+     */
+    public synchronized void append(int index, Question question) throws IOException {
+        String line = gson.toJson(new JournalRecord(index, question)) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            fileChannel.force(false);
+        } else {
+            unforcedWrites = true;
+        }
+    }
+
+    /**
+     * Appends several questions with a single write, and a single fsync depending on the fsync policy
+     * @param firstIndex the position of the first question in the question list, the others follow it
+     */
+    public synchronized void appendAll(int firstIndex, List<Question> questions) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < questions.size(); i++) {
+            lines.append(gson.toJson(new JournalRecord(firstIndex + i, questions.get(i)))).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            fileChannel.force(false);
+        } else {
+            unforcedWrites = true;
+        }
+    }
+
+    /**
+     * Forces everything written so far to disk, used for the interval fsync policy
+     */
+    public synchronized void sync() throws IOException {
+        if (unforcedWrites) {
+            fileChannel.force(false);
+            unforcedWrites = false;
+        }
+    }
+
+    /**
+     * Moves all records written so far to the target file and continues with an empty journal
+     */
+    public synchronized void rotateTo(Path target) throws IOException {
+        fileChannel.force(false);
+        fileChannel.close();
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        unforcedWrites = false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        fileChannel.force(false);
+        fileChannel.close();
+    }
+
+    /**
+     * Reads all records of a journal file. A record that was only partly written because the bot crashed is cut off the file.
+     * Only the last line can be such a record, it is the only one without a line break. Every line before it was written completely,
+     * so one that cannot be read means the file is corrupt: replaying fails and the file is left as it is.
+     * @param path the journal file, nothing happens if it does not exist
+     * @param consumer gets every complete record in the order they were written
+     * @throws IOException if the file cannot be read or a complete line is not a valid record
+     */
+    public static void replay(Path path, Gson gson, Consumer<JournalRecord> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        long validBytes = 0;
+        int lineNumber = 0;
+        byte[] line = new byte[256];
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+            while (true) {
+                int length = 0;
+                int read;
+                // lines are split on the bytes, a record torn in the middle of a character must not break the lines before it
+                while ((read = inputStream.read()) >= 0 && read != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = (byte) read;
+                }
+                boolean terminated = read == '\n';
+                if (!terminated && length == 0) {
+                    break;
+                }
+                lineNumber++;
+                JournalRecord record = parse(line, length, gson);
+                if (record == null) {
+                    if (terminated) {
+                        throw new IOException("Journal " + path + " is corrupt, line " + lineNumber + " is not a valid record");
+                    }
+                    logger.warn("Journal {} ends with an incomplete record, it is dropped", path);
+                    break;
+                }
+                if (record != BLANK_LINE) {
+                    consumer.accept(record);
+                }
+                validBytes += length + 1;
+                if (!terminated) {
+                    break;
+                }
+            }
+        }
+        repairEnd(path, validBytes);
+    }
+
+    /**
+     * @return the record in the line, {@link #BLANK_LINE} for a line without one or null if the line is not a valid record
+     */
+    private static JournalRecord parse(byte[] line, int length, Gson gson) {
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(line, 0, length)).toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+        if (text.isBlank()) {
+            return BLANK_LINE;
+        }
+        try {
+            JournalRecord record = gson.fromJson(text, JournalRecord.class);
+            return record == null || record.getQuestion() == null ? null : record;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cuts off everything after the last complete record and makes sure the file ends with a line break
+     */
+    private static void repairEnd(Path path, long validBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (validBytes < size) {
+                channel.truncate(validBytes);
+                channel.force(false);
+            } else if (validBytes > size) {
+                channel.write(ByteBuffer.wrap(new byte[]{'\n'}), size);
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * One line of the journal
+     */
+    public static class JournalRecord {
+        private final int index;
+        private final Question question;
+
+        public JournalRecord(int index, Question question) {
+            this.index = index;
+            this.question = question;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Question getQuestion() {
+            return question;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package service.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import dataObjects.Question;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Reads a json array of questions one question at a time, so the whole file never has to be held in memory
+ */
+public class StreamingQuestionReader {
+    /**
+     * How many questions are read between two progress reports
+     */
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private StreamingQuestionReader() {
+
+    }
+
+    /**
+     * @param path a file containing a json array of questions
+     * @param consumer gets every question as soon as it is parsed
+     * @param progressListener informed every few thousand questions and once at the end
+     * @return how many questions were read
+     */
+    public static int read(Path path, Gson gson, Consumer<Question> consumer, LoadingProgressListener progressListener) throws IOException {
+        long totalBytes = Files.size(path);
+        int questionsRead = 0;
+        try (CountingInputStream inputStream = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Question question = gson.fromJson(reader, Question.class);
+                consumer.accept(question);
+                questionsRead++;
+                if (questionsRead % PROGRESS_INTERVAL == 0) {
+                    progressListener.progress(questionsRead, inputStream.getBytesRead(), totalBytes);
+                }
+            }
+            reader.endArray();
+        }
+        progressListener.progress(questionsRead, totalBytes, totalBytes);
+        return questionsRead;
+    }
+
+    /**
+     * Counts the bytes passing through for progress reports
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long bytesRead;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                bytesRead++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        private long getBytesRead() {
+            return bytesRead;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package service.transfer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma separated records one at a time. Cells may be quoted with double quotes, then they may contain commas,
+ * line breaks and doubled quotes standing for a single one.
+ */
+public class CsvRecordReader {
+    private final Reader reader;
+    private int lineNumber = 1;
+    private int recordLineNumber;
+    /**
+     * A character read ahead, -2 if there is none
+     */
+    private int pushedBack = -2;
+
+    /**
+     * @param reader should be buffered, it is read one character at a time
+     */
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the cells of the next record, null at the end of the input. Empty lines are skipped.
+     * @throws MalformedRecordException if a quoted cell is not closed or followed by something other than a comma or the end of the line.
+     * The rest of the record is skipped, so reading can go on with the next record.
+     */
+    public List<String> next() throws IOException {
+        int character = read();
+        while (character == '\n' || character == '\r') {
+            character = read();
+        }
+        if (character == -1) {
+            return null;
+        }
+        recordLineNumber = lineNumber;
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        while (true) {
+            if (character == '"' && cell.length() == 0) {
+                character = readQuotedCell(cell);
+            }
+            if (character == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (character == '\n' || character == '\r' || character == -1) {
+                cells.add(cell.toString());
+                return cells;
+            } else if (character == '"') {
+                skipRestOfLine();
+                throw new MalformedRecordException(recordLineNumber, "a quote must be at the beginning of a cell");
+            } else {
+                cell.append((char) character);
+            }
+            character = read();
+        }
+    }
+
+    /**
+     * @return the character after the closing quote
+     */
+    private int readQuotedCell(StringBuilder cell) throws IOException {
+        while (true) {
+            int character = read();
+            if (character == -1) {
+                throw new MalformedRecordException(recordLineNumber, "a quoted cell is not closed");
+            }
+            if (character == '"') {
+                int following = read();
+                if (following != '"') {
+                    if (following != ',' && following != '\n' && following != '\r' && following != -1) {
+                        skipRestOfLine();
+                        throw new MalformedRecordException(recordLineNumber, "a quoted cell must be followed by a comma or the end of the line");
+                    }
+                    return following;
+                }
+            }
+            cell.append((char) character);
+        }
+    }
+
+    private void skipRestOfLine() throws IOException {
+        int character = read();
+        while (character != '\n' && character != -1) {
+            character = read();
+        }
+    }
+
+    /**
+     * @return the line the last record returned started on, counting from 1
+     */
+    public int getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    private int read() throws IOException {
+        int character;
+        if (pushedBack != -2) {
+            character = pushedBack;
+            pushedBack = -2;
+        } else {
+            character = reader.read();
+        }
+        if (character == '\r') {
+            // a line break written as \r\n counts once
+            int following = reader.read();
+            if (following != '\n') {
+                pushedBack = following;
+            }
+            lineNumber++;
+            return '\n';
+        }
+        if (character == '\n') {
+            lineNumber++;
+        }
+        return character;
+    }
+
+    /**
+     * A record that does not follow the csv rules
+     */
+    public static class MalformedRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int lineNumber;
+
+        public MalformedRecordException(int lineNumber, String reason) {
+            super(reason);
+            this.lineNumber = lineNumber;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+    }
+}
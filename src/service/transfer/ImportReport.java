@@ -0,0 +1,95 @@
+package service.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What an import did: how many questions were added and which lines were rejected and why
+ */
+public class ImportReport {
+    /**
+     * Only the first rejections are kept, the others are just counted
+     */
+    private static final int MAXIMUM_REJECTIONS_KEPT = 1000;
+
+    private int imported;
+    private int rejected;
+    private boolean persisted = true;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addRejection(int lineNumber, String reason) {
+        rejected++;
+        if (rejections.size() < MAXIMUM_REJECTIONS_KEPT) {
+            rejections.add(new Rejection(lineNumber, reason));
+        }
+    }
+
+    void markNotPersisted() {
+        persisted = false;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return false if some questions could not be written to disk, they are gone after the next restart
+     */
+    public boolean isPersisted() {
+        return persisted;
+    }
+
+    /**
+     * @return the first rejected lines in the order they were read
+     */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /**
+     * @param maximumRejections how many rejected lines to list
+     */
+    public String summary(int maximumRejections) {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Imported %d questions, rejected %d.", imported, rejected));
+        if (!persisted) {
+            summary.append(" Some questions could not be stored permanently, they will be gone after the next restart.");
+        }
+        int listed = Math.min(maximumRejections, rejections.size());
+        for (int i = 0; i < listed; i++) {
+            Rejection rejection = rejections.get(i);
+            summary.append(String.format("%nLine %d: %s", rejection.getLineNumber(), rejection.getReason()));
+        }
+        if (rejected > listed) {
+            summary.append(String.format("%n... and %d more", rejected - listed));
+        }
+        return summary.toString();
+    }
+
+    public static class Rejection {
+        private final int lineNumber;
+        private final String reason;
+
+        public Rejection(int lineNumber, String reason) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
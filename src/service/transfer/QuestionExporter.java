@@ -0,0 +1,61 @@
+package service.transfer;
+
+import com.google.gson.Gson;
+import dataObjects.Answer;
+import dataObjects.Question;
+import service.validation.QuestionRules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes questions to a csv or jsonl file one at a time, in the format the {@link QuestionImporter} reads
+ */
+public class QuestionExporter implements Closeable {
+    private final Writer writer;
+    private final QuestionFileFormat format;
+    private final Gson gson;
+
+    public QuestionExporter(Writer writer, QuestionFileFormat format, Gson gson) throws IOException {
+        this.writer = writer;
+        this.format = format;
+        this.gson = gson;
+        if (format == QuestionFileFormat.CSV) {
+            writer.write("question,answers\n");
+        }
+    }
+
+    public void write(Question question) throws IOException {
+        if (format == QuestionFileFormat.JSONL) {
+            writer.write(gson.toJson(question));
+            writer.write('\n');
+            return;
+        }
+        writeCell(question.getQuestion() == null ? "" : question.getQuestion());
+        for (Answer answer : question.getAnswers()) {
+            writer.write(',');
+            writeCell(QuestionRules.formatAnswer(answer));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Quotes the cell if it contains anything that would otherwise end it
+     */
+    private void writeCell(String cell) throws IOException {
+        boolean quoted = cell.isEmpty() || cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0;
+        if (!quoted) {
+            writer.write(cell);
+            return;
+        }
+        writer.write('"');
+        writer.write(cell.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
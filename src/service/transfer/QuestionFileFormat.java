@@ -0,0 +1,37 @@
+package service.transfer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The file formats questions can be imported from and exported to
+ */
+public enum QuestionFileFormat {
+    /**
+     * One question per record: the question text followed by its answers, each written as "right ..." or "wrong ...".
+     * A first record starting with the cell "question" is a header and skipped.
+     */
+    CSV,
+    /**
+     * One question per line as json, the way they are kept in storage.json
+     */
+    JSONL;
+
+    /**
+     * @return the format matching the extension of the file name, null if there is none
+     */
+    public static QuestionFileFormat fromFileName(String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        if (lowerCaseName.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lowerCaseName.endsWith(".jsonl") || lowerCaseName.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        return null;
+    }
+
+    public static QuestionFileFormat fromPath(Path path) {
+        return fromFileName(path.getFileName().toString());
+    }
+}
@@ -0,0 +1,214 @@
+package service.transfer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dataObjects.Answer;
+import dataObjects.Question;
+import service.validation.QuestionRules;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Reads questions from a csv or jsonl file and hands the valid ones over in batches.
+ * Records are read one batch at a time, so files of any size can be imported. The records of a batch are parsed and checked
+ * in parallel with the rules of the chat wizard, then checked for duplicates and committed in the order of the file.
+ */
+public class QuestionImporter {
+    private final Gson gson;
+    private final int batchSize;
+    /**
+     * Returns why a valid question must not be added, e.g. because it is a duplicate, or null if it may be added
+     */
+    private final Function<Question, String> duplicateCheck;
+    private final BatchCommitter committer;
+
+    /**
+     * @param batchSize how many records are read, checked and committed at once
+     */
+    public QuestionImporter(Gson gson, int batchSize, Function<Question, String> duplicateCheck, BatchCommitter committer) {
+        this.gson = gson;
+        this.batchSize = batchSize;
+        this.duplicateCheck = duplicateCheck;
+        this.committer = committer;
+    }
+
+    /**
+     * @param reader the file to import, it is not closed
+     */
+    public ImportReport importQuestions(Reader reader, QuestionFileFormat format) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        RecordSource source = format == QuestionFileFormat.CSV ? new CsvSource(bufferedReader) : new JsonLineSource(bufferedReader);
+        ImportReport report = new ImportReport();
+        List<RawRecord> batch = new ArrayList<>(batchSize);
+        boolean more = true;
+        while (more) {
+            batch.clear();
+            while (more && batch.size() < batchSize) {
+                more = source.next(batch, report);
+            }
+            importBatch(batch, report);
+        }
+        return report;
+    }
+
+    private void importBatch(List<RawRecord> batch, ImportReport report) {
+        ParsedRecord[] parsed = IntStream.range(0, batch.size())
+                .parallel()
+                .mapToObj(i -> parse(batch.get(i)))
+                .toArray(ParsedRecord[]::new);
+        List<Question> valid = new ArrayList<>(parsed.length);
+        for (int i = 0; i < parsed.length; i++) {
+            String violation = parsed[i].violation;
+            if (violation == null) {
+                violation = duplicateCheck.apply(parsed[i].question);
+            }
+            if (violation != null) {
+                report.addRejection(batch.get(i).lineNumber, violation);
+                continue;
+            }
+            valid.add(parsed[i].question);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        if (!committer.commit(valid)) {
+            report.markNotPersisted();
+        }
+        report.addImported(valid.size());
+    }
+
+    private ParsedRecord parse(RawRecord record) {
+        Question question;
+        if (record.cells != null) {
+            List<Answer> answers = new ArrayList<>(record.cells.size() - 1);
+            for (int i = 1; i < record.cells.size(); i++) {
+                String cell = record.cells.get(i);
+                if (cell.isBlank()) {
+                    continue;
+                }
+                Answer answer = QuestionRules.parseAnswer(cell.strip());
+                if (answer == null) {
+                    return new ParsedRecord(null, String.format("answer %d needs to begin with either 'right ' or 'wrong '", i));
+                }
+                answers.add(answer);
+            }
+            question = new Question(record.cells.get(0).trim(), answers);
+        } else {
+            try {
+                question = gson.fromJson(record.line, Question.class);
+            } catch (JsonParseException e) {
+                return new ParsedRecord(null, "not a valid question in json");
+            }
+            if (question == null) {
+                return new ParsedRecord(null, "not a valid question in json");
+            }
+        }
+        return new ParsedRecord(question, QuestionRules.findViolation(question));
+    }
+
+    /**
+     * Stores a batch of valid questions
+     */
+    @FunctionalInterface
+    public interface BatchCommitter {
+        /**
+         * @return false if the questions could not be persisted
+         */
+        boolean commit(List<Question> questions);
+    }
+
+    private interface RecordSource {
+        /**
+         * Adds the next record to the batch or reports it as rejected if it cannot be read
+         * @return false at the end of the file
+         */
+        boolean next(List<RawRecord> batch, ImportReport report) throws IOException;
+    }
+
+    private static final class CsvSource implements RecordSource {
+        private final CsvRecordReader reader;
+        private boolean first = true;
+
+        private CsvSource(Reader reader) {
+            this.reader = new CsvRecordReader(reader);
+        }
+
+        @Override
+        public boolean next(List<RawRecord> batch, ImportReport report) throws IOException {
+            List<String> cells;
+            try {
+                cells = reader.next();
+            } catch (CsvRecordReader.MalformedRecordException e) {
+                report.addRejection(e.getLineNumber(), e.getMessage());
+                first = false;
+                return true;
+            }
+            if (cells == null) {
+                return false;
+            }
+            boolean header = first && cells.get(0).trim().toLowerCase(Locale.ROOT).equals("question");
+            first = false;
+            if (!header) {
+                batch.add(new RawRecord(reader.getRecordLineNumber(), cells, null));
+            }
+            return true;
+        }
+    }
+
+    private static final class JsonLineSource implements RecordSource {
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        private JsonLineSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next(List<RawRecord> batch, ImportReport report) throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            if (!line.isBlank()) {
+                batch.add(new RawRecord(lineNumber, null, line));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A record as read from the file, either csv cells or a json line
+     */
+    private static final class RawRecord {
+        private final int lineNumber;
+        private final List<String> cells;
+        private final String line;
+
+        private RawRecord(int lineNumber, List<String> cells, String line) {
+            this.lineNumber = lineNumber;
+            this.cells = cells;
+            this.line = line;
+        }
+    }
+
+    private static final class ParsedRecord {
+        private final Question question;
+        /**
+         * Why the record cannot be imported, null if it can
+         */
+        private final String violation;
+
+        private ParsedRecord(Question question, String violation) {
+            this.question = question;
+            this.violation = violation;
+        }
+    }
+}
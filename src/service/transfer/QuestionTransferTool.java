@@ -0,0 +1,93 @@
+package service.transfer;
+
+import com.google.gson.Gson;
+import dataObjects.Question;
+import service.QuestionImportService;
+import service.QuestionStorageService;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports and exports questions without the bot running.
+ * <ul>
+ *     <li>export questions.csv writes all questions of the storage in the current directory to a csv or jsonl file,
+ *     the journals included, the bot must not be running meanwhile</li>
+ *     <li>validate questions.csv checks a file and lists the lines that would be rejected</li>
+ *     <li>import questions.csv adds the questions to the storage in the current directory, the bot must not be running meanwhile</li>
+ * </ul>
+ */
+public class QuestionTransferTool {
+    private static final int REJECTIONS_SHOWN = 100;
+
+    private QuestionTransferTool() {
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("export")) {
+            export(Path.of(args[1]));
+        } else if (args.length == 2 && args[0].equals("validate")) {
+            validate(Path.of(args[1]));
+        } else if (args.length == 2 && args[0].equals("import")) {
+            importInto(Path.of(args[1]));
+        } else {
+            System.out.println("Usage: QuestionTransferTool export <target .csv or .jsonl>");
+            System.out.println("       QuestionTransferTool validate <.csv or .jsonl file>");
+            System.out.println("       QuestionTransferTool import <.csv or .jsonl file>");
+        }
+    }
+
+    /**
+     * Loads the storage like the bot does, so questions still in a journal or only in storage.bin are exported too
+     */
+    private static void export(Path target) throws IOException {
+        QuestionFileFormat format = requireFormat(target);
+        QuestionStorageService storage = QuestionStorageService.getInstance();
+        if (!storage.awaitLoaded()) {
+            throw new IOException("Could not load the questions to export, see the log for why");
+        }
+        List<Question> questions = storage.getQuestions();
+        try (QuestionExporter exporter = new QuestionExporter(Files.newBufferedWriter(target, StandardCharsets.UTF_8), format, new Gson())) {
+            for (Question question : questions) {
+                exporter.write(question);
+            }
+        }
+        System.out.printf(Locale.ROOT, "Exported %d questions to %s%n", questions.size(), target);
+    }
+
+    private static void validate(Path file) throws IOException {
+        QuestionImporter importer = new QuestionImporter(new Gson(), 1000, question -> null, questions -> true);
+        ImportReport report;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            report = importer.importQuestions(reader, requireFormat(file));
+        }
+        for (ImportReport.Rejection rejection : report.getRejections()) {
+            System.out.printf(Locale.ROOT, "Line %d: %s%n", rejection.getLineNumber(), rejection.getReason());
+        }
+        System.out.printf(Locale.ROOT, "%d valid questions, %d rejected%n", report.getImported(), report.getRejected());
+    }
+
+    private static void importInto(Path file) throws IOException {
+        QuestionFileFormat format = requireFormat(file);
+        ImportReport report;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            report = QuestionImportService.getInstance().importQuestions(reader, format);
+        }
+        QuestionStorageService.getInstance().storeQuestions();
+        System.out.println(report.summary(REJECTIONS_SHOWN));
+    }
+
+    private static QuestionFileFormat requireFormat(Path file) {
+        QuestionFileFormat format = QuestionFileFormat.fromPath(file);
+        if (format == null) {
+            throw new IllegalArgumentException("Use a file ending in .csv or .jsonl instead of " + file);
+        }
+        return format;
+    }
+}
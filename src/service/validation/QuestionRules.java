@@ -0,0 +1,75 @@
+package service.validation;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+
+/**
+ * The rules a question has to follow to be saved, shared by the chat wizard and the bulk import
+ */
+public class QuestionRules {
+    private static final String RIGHT_PREFIX = "right ";
+    private static final String WRONG_PREFIX = "wrong ";
+    /**
+     * The most answers a question can have, the binary storage format keeps the correct ones as the bits of a long
+     */
+    public static final int MAXIMUM_ANSWERS = Long.SIZE;
+
+    private QuestionRules() {
+
+    }
+
+    /**
+     * @return true if there is a least one correct answer in the question
+     */
+    public static boolean hasOneCorrectAnswer(Question question) {
+        for (Answer answer : question.getAnswers()) {
+            if (answer.isCorrect()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param text an answer written as "right Neil Armstrong" or "wrong Buzz Aldrin"
+     * @return the answer or null if the text does not begin with "right " or "wrong "
+     */
+    public static Answer parseAnswer(String text) {
+        if (!(text.startsWith(WRONG_PREFIX) || text.startsWith(RIGHT_PREFIX))) {
+            return null;
+        }
+        return new Answer(text.substring(RIGHT_PREFIX.length()), text.startsWith(RIGHT_PREFIX));
+    }
+
+    /**
+     * Writes the answer the way {@link #parseAnswer(String)} reads it
+     */
+    public static String formatAnswer(Answer answer) {
+        return (answer.isCorrect() ? RIGHT_PREFIX : WRONG_PREFIX) + answer.getAnswer();
+    }
+
+    /**
+     * Checks a complete question, e.g. one read from a file
+     * @return why the question cannot be saved or null if it can
+     */
+    public static String findViolation(Question question) {
+        if (question.getQuestion() == null || question.getQuestion().isBlank()) {
+            return "the question text is missing";
+        }
+        if (question.getAnswers() == null || question.getAnswers().isEmpty()) {
+            return "the question has no answers";
+        }
+        if (question.getAnswers().size() > MAXIMUM_ANSWERS) {
+            return "the question has more than " + MAXIMUM_ANSWERS + " answers";
+        }
+        for (Answer answer : question.getAnswers()) {
+            if (answer == null || answer.getAnswer() == null) {
+                return "an answer text is missing";
+            }
+        }
+        if (!hasOneCorrectAnswer(question)) {
+            return "the question needs at least one correct answer";
+        }
+        return null;
+    }
+}
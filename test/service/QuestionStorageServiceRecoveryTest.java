@@ -0,0 +1,99 @@
+package service;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dataObjects.Answer;
+import dataObjects.Question;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import service.storage.FsyncPolicy;
+import service.storage.QuestionJournal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the storage on the files a crash in the middle of a compaction leaves behind: the journal was rotated to storage.json.journal.compacting,
+ * the new snapshot was only partly written to storage.json.tmp and the journal got more records, the last one torn.
+ * The storage is a singleton reading its directory once, so this needs a JVM of its own, which surefire gives every test class.
+ */
+class QuestionStorageServiceRecoveryTest {
+    private static final Gson gson = new Gson();
+
+    private static Path directory;
+
+    @BeforeAll
+    static void crashDuringCompaction() throws IOException {
+        directory = Files.createTempDirectory("question-storage-test");
+        System.setProperty("bot.storage.directory", directory.toString());
+        System.setProperty("bot.storage.fsyncPolicy", FsyncPolicy.NEVER.name());
+
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(directory.resolve("storage.json"), StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            gson.toJson(question(0), Question.class, writer);
+            gson.toJson(question(1), Question.class, writer);
+            writer.endArray();
+        }
+        try (QuestionJournal compacting = new QuestionJournal(directory.resolve("storage.json.journal.compacting"), FsyncPolicy.NEVER, gson)) {
+            // question 1 was already in the snapshot before, a compaction that failed earlier can leave such records behind
+            compacting.append(1, question(1));
+            compacting.append(2, question(2));
+            compacting.append(3, question(3));
+        }
+        Files.writeString(directory.resolve("storage.json.tmp"), "[{\"question\":\"Generated question number 0", StandardCharsets.UTF_8);
+        Path journalPath = directory.resolve("storage.json.journal");
+        try (QuestionJournal journal = new QuestionJournal(journalPath, FsyncPolicy.NEVER, gson)) {
+            journal.append(4, question(4));
+        }
+        Files.writeString(journalPath, "{\"index\":5,\"question\":{\"quest", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    @AfterAll
+    static void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void loadsTheSnapshotAndBothJournalsAndFinishesTheCompaction() throws IOException {
+        QuestionStorageService storage = QuestionStorageService.getInstance();
+        assertTrue(storage.awaitLoaded());
+        assertQuestions(storage.getQuestions(), 5);
+
+        assertTrue(storage.addQuestion(question(5)));
+        storage.storeQuestions();
+
+        assertFalse(Files.exists(directory.resolve("storage.json.journal.compacting")));
+        // the journal was not rotated as the compacting journal still existed, its records are all in the snapshot now and skipped when loading
+        QuestionJournal.replay(directory.resolve("storage.json.journal"), gson, record -> assertTrue(record.getIndex() < 6));
+        Question[] snapshot = gson.fromJson(Files.readString(directory.resolve("storage.json")), Question[].class);
+        assertQuestions(List.of(snapshot), 6);
+    }
+
+    private static void assertQuestions(List<Question> questions, int expected) {
+        assertEquals(expected, questions.size());
+        for (int i = 0; i < expected; i++) {
+            assertEquals(question(i).getQuestion(), questions.get(i).getQuestion());
+        }
+    }
+
+    private static Question question(int number) {
+        return new Question("Generated question number " + number + ", which answer is right?", List.of(
+                new Answer("the wrong answer", false),
+                new Answer("the right answer", true)));
+    }
+}
@@ -0,0 +1,78 @@
+package service;
+
+import dataObjects.Answer;
+import dataObjects.Question;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import service.storage.FsyncPolicy;
+import service.storage.LoadMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads questions from the snapshot file on demand and replaces that file by compacting while versions of the questions are held.
+ * The storage is a singleton reading its settings once, so this needs a JVM of its own, which surefire gives every test class.
+ */
+class QuestionStorageServiceSnapshotTest {
+    private static Path directory;
+
+    @BeforeAll
+    static void readSnapshotsOnDemand() throws IOException {
+        directory = Files.createTempDirectory("question-storage-test");
+        System.setProperty("bot.storage.directory", directory.toString());
+        System.setProperty("bot.storage.fsyncPolicy", FsyncPolicy.NEVER.name());
+        System.setProperty("bot.storage.loadMode", LoadMode.INDEXED.name());
+    }
+
+    @AfterAll
+    static void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void aVersionStaysReadableAfterItsSnapshotWasReplaced() throws InterruptedException {
+        QuestionStorageService storage = QuestionStorageService.getInstance();
+        assertTrue(storage.awaitLoaded());
+        List<List<Question>> heldVersions = new ArrayList<>();
+        for (int compaction = 0; compaction < 5; compaction++) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(storage.addQuestion(question(compaction * 10 + i)));
+            }
+            storage.storeQuestions();
+            heldVersions.add(storage.getQuestions());
+            // versions nobody holds anymore have their files closed meanwhile
+            storage.getQuestions().get(0);
+            System.gc();
+        }
+        for (int i = 0; i < 20; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        for (List<Question> version : heldVersions) {
+            for (int i = 0; i < version.size(); i++) {
+                assertEquals(question(i).getQuestion(), version.get(i).getQuestion());
+            }
+        }
+        assertEquals(50, storage.getQuestions().size());
+    }
+
+    private static Question question(int number) {
+        return new Question("Generated question number " + number + ", which answer is right?", List.of(
+                new Answer("the wrong answer", false),
+                new Answer("the right answer", true)));
+    }
+}
@@ -0,0 +1,102 @@
+package service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GcraTableTest {
+    private static final long INTERVAL = 1000;
+    private static final long TOLERANCE = 3000;
+
+    @Test
+    void allowsABurstUpToTheTolerance() {
+        assertBurstAndSteadyRate(1);
+    }
+
+    @Test
+    void allowsTheSteadyRateAfterABurst() {
+        GcraTable table = new GcraTable(64);
+        long now = 1;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, table.tryAcquire(42, INTERVAL, TOLERANCE, now));
+        }
+        for (int i = 0; i < 100; i++) {
+            now += INTERVAL;
+            assertEquals(0, table.tryAcquire(42, INTERVAL, TOLERANCE, now), "message at the steady rate " + i);
+            assertEquals(INTERVAL, table.tryAcquire(42, INTERVAL, TOLERANCE, now), "message above the steady rate " + i);
+        }
+        // a key that paused long enough has its full burst again
+        now += TOLERANCE + INTERVAL;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, table.tryAcquire(42, INTERVAL, TOLERANCE, now));
+        }
+        assertEquals(INTERVAL, table.tryAcquire(42, INTERVAL, TOLERANCE, now));
+    }
+
+    @Test
+    void keepsLimitingWhenTheTimeWrapsAroundFortyBits() {
+        long wrap = 1L << 40;
+        assertBurstAndSteadyRate(wrap - 2500);
+        assertBurstAndSteadyRate(wrap - 1);
+        assertBurstAndSteadyRate(wrap);
+        assertBurstAndSteadyRate(7 * wrap - 10);
+    }
+
+    @Test
+    void freesTheEntryOfAKeyAfterTheTimeWrappedAround() {
+        GcraTable table = new GcraTable(8);
+        long now = (1L << 40) - 100;
+        // fill all places with keys that are limited for a while
+        for (long key = 0; key < 8; key++) {
+            assertEquals(0, table.tryAcquire(key, INTERVAL, 0, now));
+        }
+        assertEquals(INTERVAL, table.tryAcquire(0, INTERVAL, 0, now));
+        // once their TATs have passed, on the other side of the wrap, a new key takes a place instead of overflowing
+        now += INTERVAL;
+        assertEquals(0, table.tryAcquire(100, INTERVAL, 0, now));
+        assertEquals(INTERVAL, table.tryAcquire(100, INTERVAL, 0, now));
+        assertEquals(0, table.getOverflows());
+    }
+
+    @Test
+    void limitsKeysIndependently() {
+        GcraTable table = new GcraTable(4096);
+        for (long key = 0; key < 1000; key++) {
+            for (int i = 0; i < 4; i++) {
+                assertEquals(0, table.tryAcquire(key, INTERVAL, TOLERANCE, 1), "burst of key " + key);
+            }
+        }
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(INTERVAL, table.tryAcquire(key, INTERVAL, TOLERANCE, 1), "key " + key + " after its burst");
+        }
+        assertEquals(0, table.getOverflows());
+    }
+
+    @Test
+    void letsMessagesThroughAndCountsThemWhenThereIsNoRoom() {
+        GcraTable table = new GcraTable(8);
+        for (long key = 0; key < 8; key++) {
+            assertEquals(0, table.tryAcquire(key, INTERVAL, 0, 1));
+        }
+        assertEquals(0, table.tryAcquire(100, INTERVAL, 0, 1));
+        assertEquals(0, table.tryAcquire(100, INTERVAL, 0, 1));
+        assertEquals(2, table.getOverflows());
+    }
+
+    /**
+     * A burst of 4 messages, the fifth waits for one interval, then one message per interval, starting at the given time
+     */
+    private static void assertBurstAndSteadyRate(long start) {
+        GcraTable table = new GcraTable(64);
+        long now = start;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, table.tryAcquire(7, INTERVAL, TOLERANCE, now + i), "burst message " + i + " at " + start);
+        }
+        assertEquals(INTERVAL - 4, table.tryAcquire(7, INTERVAL, TOLERANCE, now + 4), "message after the burst at " + start);
+        for (int i = 0; i < 5; i++) {
+            now += INTERVAL;
+            assertEquals(0, table.tryAcquire(7, INTERVAL, TOLERANCE, now), "steady message " + i + " at " + start);
+            assertEquals(INTERVAL, table.tryAcquire(7, INTERVAL, TOLERANCE, now), "extra message " + i + " at " + start);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package service.matching;
+
+import dataObjects.Answer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnswerMatcherTest {
+    /**
+     * Letters of one and two bytes in utf-16 code units, digits, upper case, and characters that do not count
+     */
+    private static final String ALPHABET = "abcxyzABXZéÉüÜßøΩωжЖ0123456789 .,-'!😀";
+
+    @Test
+    void matchesLikeALevenshteinReference() {
+        Random random = new Random(20260101);
+        for (int round = 0; round < 20000; round++) {
+            List<Answer> answers = new ArrayList<>();
+            int answerCount = 1 + random.nextInt(4);
+            for (int i = 0; i < answerCount; i++) {
+                answers.add(new Answer(randomAnswer(random), i == 0));
+            }
+            AnswerMatcher matcher = new AnswerMatcher(answers);
+            for (int message = 0; message < 5; message++) {
+                String answer = answers.get(random.nextInt(answerCount)).getAnswer();
+                String text = mistype(answer, random.nextInt(4), random);
+                assertEquals(referenceMatch(answers, text), matcher.match(text),
+                        () -> "answers " + texts(answers) + ", text \"" + text + "\"");
+            }
+        }
+    }
+
+    @Test
+    void toleratesTypingErrorsInAnAnswerOfSixtyFourCharacters() {
+        String answer = "abcdefghijklmnopqrstuvwxyz".repeat(2) + "abcdefghijkl";
+        assertEquals(64, answer.length());
+        AnswerMatcher matcher = new AnswerMatcher(List.of(new Answer(answer, true)));
+
+        assertEquals(0, matcher.match(answer.toUpperCase()));
+        assertEquals(0, matcher.match("x" + answer.substring(1, 63) + "y"));
+        assertEquals(0, matcher.match(answer.substring(1) + "x"));
+        assertEquals(-1, matcher.match("x" + answer.substring(1, 32) + "y" + answer.substring(33, 63) + "z"));
+    }
+
+    @Test
+    void matchesAnswersLongerThanSixtyFourCharactersOnlyExactly() {
+        String answer = "abcdefghijklmnopqrstuvwxyz".repeat(2) + "abcdefghijklm";
+        AnswerMatcher matcher = new AnswerMatcher(List.of(new Answer(answer, true)));
+
+        assertEquals(0, matcher.match(answer.replace("m", " M!")));
+        assertEquals(-1, matcher.match(answer.substring(1)));
+    }
+
+    @Test
+    void matchesNonAsciiAnswers() {
+        AnswerMatcher matcher = new AnswerMatcher(List.of(new Answer("Größenwahn", true), new Answer("Жуковский", false)));
+
+        assertEquals(0, matcher.match("GRÖSSENWAHN"));
+        assertEquals(0, matcher.match("grössenwahn"));
+        assertEquals(-1, matcher.match("grossenwahn"));
+        assertEquals(1, matcher.match("жуковскии"));
+        assertEquals(-1, matcher.match("zhukovsky"));
+    }
+
+    @Test
+    void matchesNumbersOnlyExactly() {
+        AnswerMatcher matcher = new AnswerMatcher(List.of(new Answer("1969", true), new Answer("Apollo 11", false)));
+
+        assertEquals(0, matcher.match("1969!"));
+        assertEquals(-1, matcher.match("1968"));
+        assertEquals(-1, matcher.match("19690"));
+        assertEquals(1, matcher.match("apolo 11"));
+    }
+
+    @Test
+    void prefersTheClosestAnswerAndTheFirstOfEquallyCloseOnes() {
+        AnswerMatcher matcher = new AnswerMatcher(List.of(new Answer("Paris", false), new Answer("Pares", true), new Answer("Parts", false)));
+
+        assertEquals(0, matcher.match("paris"));
+        assertEquals(1, matcher.match("pares"));
+        assertEquals(0, matcher.match("parus"));
+        assertEquals(2, matcher.match("partz"));
+    }
+
+    /**
+     * What {@link AnswerMatcher#match(String)} has to return, computed with the textbook dynamic program
+     */
+    private static int referenceMatch(List<Answer> answers, String text) {
+        char[] normalizedText = AnswerMatcher.normalize(text);
+        int bestAnswer = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < answers.size(); i++) {
+            char[] normalizedAnswer = AnswerMatcher.normalize(answers.get(i).getAnswer());
+            if (normalizedAnswer.length == 0) {
+                continue;
+            }
+            int allowed = normalizedAnswer.length > 64 ? 0 : AnswerMatcher.allowedDistance(normalizedAnswer);
+            int distance = levenshtein(normalizedAnswer, normalizedText);
+            if (distance <= allowed && distance < bestDistance) {
+                bestAnswer = i;
+                bestDistance = distance;
+            }
+        }
+        return bestAnswer;
+    }
+
+    private static int levenshtein(char[] a, char[] b) {
+        int[] previous = new int[b.length + 1];
+        int[] current = new int[b.length + 1];
+        for (int j = 0; j <= b.length; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length; i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length; j++) {
+                int substitution = previous[j - 1] + (a[i - 1] == b[j - 1] ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length];
+    }
+
+    /**
+     * Mostly short answers, where typing errors are decided, but also numbers and answers around 64 letters and digits
+     */
+    private static String randomAnswer(Random random) {
+        int kind = random.nextInt(10);
+        if (kind == 0) {
+            return String.valueOf(random.nextInt(100000));
+        }
+        int length = kind == 1 ? 60 + random.nextInt(10) : 1 + random.nextInt(12);
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            answer.append(random.nextInt(4) == 0 ? randomCharacter(random) : (char) ('a' + random.nextInt(3)));
+        }
+        return answer.toString();
+    }
+
+    private static String mistype(String answer, int errors, Random random) {
+        StringBuilder text = new StringBuilder(answer);
+        for (int i = 0; i < errors; i++) {
+            int position = random.nextInt(text.length() + 1);
+            int kind = random.nextInt(3);
+            if (kind == 0 || position == text.length()) {
+                text.insert(position, randomCharacter(random));
+            } else if (kind == 1) {
+                text.deleteCharAt(position);
+            } else {
+                text.replace(position, position + 1, randomCharacter(random));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String randomCharacter(Random random) {
+        int position = random.nextInt(ALPHABET.length() - 1);
+        // the emoji is a surrogate pair, it is inserted as a whole
+        return ALPHABET.codePointAt(position) > 0xFFFF ? "😀" : String.valueOf(ALPHABET.charAt(position));
+    }
+
+    private static String texts(List<Answer> answers) {
+        List<String> texts = new ArrayList<>();
+        for (Answer answer : answers) {
+            texts.add(answer.getAnswer());
+        }
+        return texts.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package service.messaging;
+
+import benchmark.fake.FakeDiscord;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutboundMessageServiceTest {
+    private static final FakeDiscord discord = new FakeDiscord();
+    private static final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void collectSentMessages() {
+        // batches are only sent by the tests, never by the interval
+        System.setProperty("bot.outbound.flushIntervalMillis", "600000");
+        discord.setSendListener((channelId, content) -> sent.add(channelId + ": " + content));
+    }
+
+    @Test
+    void sendsTheCollectedFeedbackBeforeAPriorityMessage() {
+        sent.clear();
+        MessageChannel channel = discord.channel(1);
+        OutboundMessageService outbound = OutboundMessageService.getInstance();
+        outbound.queueFeedback(channel, discord.user(10, "Alice"), "your answer was wrong.");
+        outbound.queueFeedback(channel, discord.user(11, "Bob"), "your answer was wrong.");
+        outbound.queueFeedback(discord.channel(2), discord.user(12, "Carol"), "your answer was wrong.");
+
+        outbound.sendPriority(channel, "Dave, congratulations your answer was right.");
+
+        assertEquals(List.of("1: Alice, Bob, your answer was wrong.", "1: Dave, congratulations your answer was right."), sent);
+        assertEquals(1, outbound.getQueuedFeedback());
+    }
+
+    @Test
+    void tellsUsersOfTheSameNameApart() {
+        sent.clear();
+        MessageChannel channel = discord.channel(3);
+        OutboundMessageService outbound = OutboundMessageService.getInstance();
+        outbound.queueFeedback(channel, discord.user(20, "Alex"), "your answer was wrong.");
+        outbound.queueFeedback(channel, discord.user(21, "Alex"), "your answer was wrong.");
+        outbound.queueFeedback(channel, discord.user(20, "Alex"), "your answer was wrong.");
+
+        outbound.sendPriority(channel, "Time is up!");
+
+        assertEquals(List.of("3: Alex, Alex, your answer was wrong.", "3: Time is up!"), sent);
+    }
+}
@@ -0,0 +1,61 @@
+package service.selection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionSelectorTest {
+
+    /**
+     * Two channels see versions of the bank of very different sizes at the same time, e.g. one still playing from the version before an import.
+     * Whatever table the other channel just built, a channel only gets questions of its own version.
+     */
+    @Test
+    void weightedDrawsStayInsideTheBankOfTheCaller() throws Exception {
+        // a refresh interval of 0 rebuilds the table on every draw, so the two sizes keep replacing each other
+        QuestionSelector selector = new QuestionSelector(SelectionMode.WEIGHTED, 0);
+        int[] bankSizes = {3, 20000};
+        ExecutorService executor = Executors.newFixedThreadPool(bankSizes.length);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?>[] channels = new Future<?>[bankSizes.length];
+            for (int channel = 0; channel < bankSizes.length; channel++) {
+                long channelId = channel;
+                int bankSize = bankSizes[channel];
+                channels[channel] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 5000; i++) {
+                        int question = selector.next(channelId, bankSize);
+                        assertTrue(question >= 0 && question < bankSize, "question " + question + " of a bank of " + bankSize);
+                        selector.recordAnswer(question, i % 3 == 0);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> channel : channels) {
+                channel.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deckDrawsStayInsideTheBankWhenItShrinks() {
+        QuestionSelector selector = new QuestionSelector(SelectionMode.DECK, 0);
+        for (int i = 0; i < 50; i++) {
+            selector.next(1, 100);
+        }
+        for (int i = 0; i < 50; i++) {
+            int question = selector.next(1, 5);
+            assertTrue(question >= 0 && question < 5, "question " + question + " of a bank of 5");
+        }
+    }
+}
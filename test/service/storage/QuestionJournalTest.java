@@ -0,0 +1,113 @@
+package service.storage;
+
+import com.google.gson.Gson;
+import dataObjects.Answer;
+import dataObjects.Question;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuestionJournalTest {
+    private static final Gson gson = new Gson();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRecoversEveryCompleteRecordWhereverTheJournalIsCut() throws IOException {
+        Path journalPath = directory.resolve("storage.json.journal");
+        try (QuestionJournal journal = new QuestionJournal(journalPath, FsyncPolicy.NEVER, gson)) {
+            for (int i = 0; i < 4; i++) {
+                journal.append(i, question(i));
+            }
+        }
+        byte[] complete = Files.readAllBytes(journalPath);
+        List<Integer> lineEnds = new ArrayList<>();
+        for (int i = 0; i < complete.length; i++) {
+            if (complete[i] == '\n') {
+                lineEnds.add(i);
+            }
+        }
+        assertEquals(4, lineEnds.size());
+
+        for (int cut = 0; cut <= complete.length; cut++) {
+            Files.write(journalPath, Arrays.copyOf(complete, cut));
+            List<QuestionJournal.JournalRecord> records = new ArrayList<>();
+            QuestionJournal.replay(journalPath, gson, records::add);
+
+            // a record is there once all of its bytes are, its line break may still be missing
+            int expectedRecords = 0;
+            while (expectedRecords < lineEnds.size() && lineEnds.get(expectedRecords) <= cut) {
+                expectedRecords++;
+            }
+            assertEquals(expectedRecords, records.size(), "records recovered when cut at byte " + cut);
+            for (int i = 0; i < expectedRecords; i++) {
+                assertEquals(i, records.get(i).getIndex());
+                assertEquals(question(i).getQuestion(), records.get(i).getQuestion().getQuestion());
+            }
+            int expectedLength = expectedRecords == 0 ? 0 : lineEnds.get(expectedRecords - 1) + 1;
+            assertArrayEquals(Arrays.copyOf(complete, expectedLength), Files.readAllBytes(journalPath),
+                    "journal after replaying it cut at byte " + cut);
+        }
+    }
+
+    @Test
+    void appendingAfterReplayingATornJournalKeepsTheRecordsApart() throws IOException {
+        Path journalPath = directory.resolve("storage.json.journal");
+        try (QuestionJournal journal = new QuestionJournal(journalPath, FsyncPolicy.NEVER, gson)) {
+            journal.append(0, question(0));
+            journal.append(1, question(1));
+        }
+        byte[] complete = Files.readAllBytes(journalPath);
+        Files.write(journalPath, Arrays.copyOf(complete, complete.length - 5));
+
+        QuestionJournal.replay(journalPath, gson, record -> { });
+        try (QuestionJournal journal = new QuestionJournal(journalPath, FsyncPolicy.NEVER, gson)) {
+            journal.append(1, question(2));
+        }
+        List<QuestionJournal.JournalRecord> records = new ArrayList<>();
+        QuestionJournal.replay(journalPath, gson, records::add);
+
+        assertEquals(2, records.size());
+        assertEquals(question(0).getQuestion(), records.get(0).getQuestion().getQuestion());
+        assertEquals(question(2).getQuestion(), records.get(1).getQuestion().getQuestion());
+    }
+
+    @Test
+    void replayFailsOnACorruptLineBeforeTheEnd() throws IOException {
+        Path journalPath = directory.resolve("storage.json.journal");
+        try (QuestionJournal journal = new QuestionJournal(journalPath, FsyncPolicy.NEVER, gson)) {
+            journal.append(0, question(0));
+        }
+        byte[] validRecord = Files.readAllBytes(journalPath);
+        byte[] corrupt = "{\"index\":1,\"quest\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[validRecord.length + corrupt.length + validRecord.length];
+        System.arraycopy(validRecord, 0, content, 0, validRecord.length);
+        System.arraycopy(corrupt, 0, content, validRecord.length, corrupt.length);
+        System.arraycopy(validRecord, 0, content, validRecord.length + corrupt.length, validRecord.length);
+        Files.write(journalPath, content);
+
+        assertThrows(IOException.class, () -> QuestionJournal.replay(journalPath, gson, record -> { }));
+        assertArrayEquals(content, Files.readAllBytes(journalPath), "a corrupt journal is left as it is");
+    }
+
+    /**
+     * Questions with characters of several bytes, so some cuts tear a character apart
+     */
+    private static Question question(int number) {
+        return new Question("Welche Antwort ist richtig, Nummer " + number + "? ü€😀", List.of(
+                new Answer("die falsche Äntwort", false),
+                new Answer("die richtige Äntwort", true)));
+    }
+}